@@ -0,0 +1,30 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results into a JSON file, so they
+ * can be compared between versions
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Runs the benchmarks matching the command line options, which are
+     * the same as JMH's. Unless specified otherwise, the results are
+     * written to <code>jmh-result.json</code>.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) options.result("jmh-result.json");
+        new Runner(options.build()).run();
+    }
+
+}
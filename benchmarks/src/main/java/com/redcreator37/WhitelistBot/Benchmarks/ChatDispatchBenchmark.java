@@ -0,0 +1,92 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.Commands.Command;
+import com.redcreator37.WhitelistBot.Commands.CommandDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many messages per second the dispatcher gets through on
+ * a realistic chat mix, in which most messages aren't commands. The
+ * fixed corpus is made of 95% plain chat, 3% messages starting with the
+ * prefix which aren't commands and 2% commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatDispatchBenchmark {
+
+    /**
+     * The number of messages in the corpus
+     */
+    private static final int CORPUS_SIZE = 10000;
+
+    /**
+     * The names of the commands registered by the bot
+     */
+    private static final String[] COMMANDS = {"list", "whitelist", "unlist", "bulkwhitelist",
+            "bulkunlist", "history", "import", "export", "getadmin", "setadmin", "getdatabase",
+            "setdatabase", "kickbot"};
+
+    private static final String[] CHAT = {"hello everyone", "anyone up for a heist tonight?", "lol",
+            "server restart in 5 minutes", "can someone help me with my car", "gg", ":)",
+            "who took my spot at the garage", "brb", "is the server down again?",
+            "I can't connect, says I'm not whitelisted", "thanks!", "ok", "see you in city"};
+
+    private static final String[] NON_COMMANDS = {"-", "-_-", "- lol", "-listfoo", "-unknown command",
+            "-WHITELIST", "--list"};
+
+    private static final String[] INVOCATIONS = {"-whitelist steam:110000112345678", "-list",
+            "-unlist steam:110000112345678", "-history steam:110000112345678", "-getadmin"};
+
+    private final String[] corpus = new String[CORPUS_SIZE];
+
+    private CommandDispatcher dispatcher;
+
+    @Setup
+    public void setUp() {
+        Map<String, Command> commands = new HashMap<>();
+        for (String name : COMMANDS) commands.put(name, event -> Mono.empty());
+        dispatcher = new CommandDispatcher('-', commands);
+        Random random = new Random(42);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int roll = random.nextInt(100);
+            String[] source = roll < 95 ? CHAT : roll < 98 ? NON_COMMANDS : INVOCATIONS;
+            corpus[i] = source[random.nextInt(source.length)];
+        }
+    }
+
+    /**
+     * Resolves every message of the corpus, each of which counts as one
+     * operation
+     *
+     * @return the number of messages resolved into commands
+     */
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public int resolveChatMix() {
+        int resolved = 0;
+        for (String content : corpus)
+            if (dispatcher.resolve(content) != null) resolved++;
+        return resolved;
+    }
+
+}
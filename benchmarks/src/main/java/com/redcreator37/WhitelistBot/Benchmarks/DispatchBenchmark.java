@@ -0,0 +1,66 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.Commands.Command;
+import com.redcreator37.WhitelistBot.Commands.CommandDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly the message contents are resolved into commands
+ * and split into the command arguments. The dispatcher only looks at
+ * the message content, so no gateway events are needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    /**
+     * The names of the commands registered by the bot
+     */
+    private static final String[] COMMANDS = {"list", "whitelist", "unlist", "bulkwhitelist",
+            "bulkunlist", "getadmin", "setadmin", "getdatabase", "setdatabase", "kickbot"};
+
+    @Param({"-whitelist steam:110000112345678", "-list", "-setdatabase localhost fivem user pass",
+            "hello everyone", "-unknown command"})
+    public String content;
+
+    private CommandDispatcher dispatcher;
+
+    @Setup
+    public void setUp() {
+        Map<String, Command> commands = new HashMap<>();
+        for (String name : COMMANDS) commands.put(name, event -> Mono.empty());
+        dispatcher = new CommandDispatcher('-', commands);
+    }
+
+    @Benchmark
+    public Command resolve() {
+        return dispatcher.resolve(content);
+    }
+
+    @Benchmark
+    public List<String> splitArguments() {
+        return Arrays.asList(content.split(" "));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.DataModels.BulkResult;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.GameHandling.ConnectionPool;
+import com.redcreator37.WhitelistBot.Database.GameHandling.PoolConfig;
+import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
+import discord4j.common.util.Snowflake;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the whitelist mutations of a {@link Guild}, including the
+ * cache updates. The game database is replaced by an in-memory H2
+ * database in MySQL mode, so only the bot's own overhead and a minimal
+ * round trip are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuildWhitelistBenchmark {
+
+    /**
+     * The number of players already whitelisted in the guild
+     */
+    @Param({"1000", "10000", "100000"})
+    public int whitelisted;
+
+    private Guild guild;
+
+    private List<String> batch;
+
+    private long next = 0;
+
+    /**
+     * Connects the guild to a fresh in-memory game database
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        JdbcDataSource source = new JdbcDataSource();
+        source.setURL("jdbc:h2:mem:fivem" + whitelisted + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection con = source.getConnection(); Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE whitelist(identifier VARCHAR(60) PRIMARY KEY)");
+            try (PreparedStatement insert = con.prepareStatement("INSERT INTO whitelist VALUES(?)")) {
+                for (int i = 0; i < whitelisted; i++) {
+                    insert.setString(1, id(i));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        PoolConfig config = new PoolConfig(1, 4, 5000, 300000, 2, 10000);
+        SharedDbProvider provider = new SharedDbProvider(Snowflake.of(1), "localhost", "", "", "fivem") {
+            @Override
+            public ConnectionPool connect() throws SQLException {
+                return new ConnectionPool(source, config);
+            }
+        };
+        guild = new Guild(Snowflake.of(1), Instant.now(), "Admin", provider);
+        guild.connectSharedDb();
+        batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) batch.add(id(whitelisted + 1000000 + i));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        guild.disconnectSharedDb();
+    }
+
+    /**
+     * Returns a unique player identifier
+     *
+     * @param i the sequence number of the player
+     * @return the identifier
+     */
+    private static String id(long i) {
+        return "steam:" + Long.toHexString(0x110000100000000L + i);
+    }
+
+    @Benchmark
+    public Optional<String> whitelistAndUnlist() {
+        String id = id(whitelisted + (next++ % 1000));
+        guild.whitelistPlayer(id);
+        return guild.unlistPlayer(id);
+    }
+
+    @Benchmark
+    public boolean isWhitelisted() {
+        return guild.isWhitelisted(id(next++ % (whitelisted * 2L)));
+    }
+
+    @Benchmark
+    public List<String> middlePage() throws SQLException {
+        return guild.getWhitelistPage(id(whitelisted / 2), 20);
+    }
+
+    @Benchmark
+    public BulkResult bulkWhitelistAndUnlist() {
+        guild.whitelistPlayers(batch);
+        return guild.unlistPlayers(batch);
+    }
+
+}
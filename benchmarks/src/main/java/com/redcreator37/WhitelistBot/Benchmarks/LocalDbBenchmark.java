@@ -0,0 +1,135 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.BotHandling.DbInstances;
+import com.redcreator37.WhitelistBot.Database.BotHandling.GuildsDb;
+import com.redcreator37.WhitelistBot.Database.BotHandling.LocalDb;
+import com.redcreator37.WhitelistBot.Database.BotHandling.Migrations;
+import com.redcreator37.WhitelistBot.Database.BotHandling.SqliteProfile;
+import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import discord4j.common.util.Snowflake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the local SQLite database with and without the tuned
+ * performance profile, on a database file holding the given number of
+ * guilds, every other one with a registered game database.
+ * <p>
+ * <code>startupLoad</code> covers what the bot does on startup: opening
+ * the connection, checking the schema version and loading all guilds.
+ * <code>updateAdminRole</code> measures single autocommitted writes,
+ * which is how the guild settings are saved outside of the autosave
+ * batches.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalDbBenchmark {
+
+    /**
+     * The number of guilds in the database
+     */
+    @Param({"10000"})
+    public int guildCount;
+
+    /**
+     * Whether the profile from the settings is used instead of the
+     * SQLite defaults
+     */
+    @Param({"false", "true"})
+    public boolean tuned;
+
+    private Path file;
+
+    private SqliteProfile profile;
+
+    private Connection con;
+
+    private StatementCache statements;
+
+    private GuildsDb guildsDb;
+
+    private Guild[] guilds;
+
+    private int next = 0;
+
+    /**
+     * Creates and fills a fresh database file
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("whitelistbot-bench", ".db");
+        profile = tuned ? SqliteProfile.fromSettings() : SqliteProfile.SQLITE_DEFAULTS;
+        con = LocalDb.connect(file.toString(), profile);
+        Migrations.migrate(con);
+        statements = new StatementCache(con);
+        guildsDb = new GuildsDb(statements);
+        DbInstances instances = new DbInstances(statements);
+        guilds = new Guild[guildCount];
+        con.setAutoCommit(false);
+        for (int i = 0; i < guildCount; i++) {
+            Snowflake id = Snowflake.of(700000000000000000L + i);
+            SharedDbProvider provider = i % 2 == 0 ? null
+                    : new SharedDbProvider(id, "db" + i + ".example.com", "user", "password", "fivem");
+            guilds[i] = new Guild(id, Instant.now(), "Admins", provider);
+            guildsDb.addGuild(guilds[i]);
+            if (provider != null) instances.saveInstance(provider);
+        }
+        con.commit();
+        con.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        statements.close();
+        con.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-wal"));
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-shm"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public Map<Snowflake, Guild> startupLoad() throws IOException, SQLException {
+        try (Connection startup = LocalDb.connect(file.toString(), profile);
+             StatementCache cache = new StatementCache(startup)) {
+            Migrations.migrate(startup);
+            return new GuildsDb(cache).getGuilds();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void updateAdminRole() throws SQLException {
+        Guild guild = guilds[next++ % guilds.length];
+        guild.setAdminRole(next % 2 == 0 ? "Admins" : "Moderators");
+        guildsDb.updateAdminRole(guild);
+    }
+
+}
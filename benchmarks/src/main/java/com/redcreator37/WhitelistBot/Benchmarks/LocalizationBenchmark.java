@@ -0,0 +1,39 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Measures the lookup and formatting of the localized messages
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizationBenchmark {
+
+    @Benchmark
+    public String lookup() {
+        return lc("permission-denied");
+    }
+
+    @Benchmark
+    public String lookupAndFormat() {
+        return MessageFormat.format(lc("required-role"), "Admin");
+    }
+
+}
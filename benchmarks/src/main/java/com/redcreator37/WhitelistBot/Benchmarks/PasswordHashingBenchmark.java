@@ -0,0 +1,69 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.Database.PasswordHandling;
+import com.redcreator37.WhitelistBot.Database.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the password hashing on the dedicated threads. Each
+ * invocation of <code>hashBatch</code> submits the given number of
+ * hashes at once and waits for all of them, so the hashing throughput
+ * is <code>concurrency / score</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    /**
+     * The number of hashes submitted at once
+     */
+    @Param({"1", "2", "4", "8", "16"})
+    public int concurrency;
+
+    private String salt;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        salt = PasswordHandling.generateSalt(16).orElseThrow(IllegalStateException::new);
+        hash = PasswordHandling.hashPassword("correct horse battery staple", salt)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    @Benchmark
+    public String hashBatch() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> PasswordHasher.hash("password" + i, salt), concurrency)
+                .blockLast();
+    }
+
+    @Benchmark
+    public String hashCallingThread() {
+        return PasswordHandling.hashPassword("password", salt).orElse(null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Boolean verifyCached() {
+        return PasswordHasher.matches("correct horse battery staple", hash, salt).block();
+    }
+
+}
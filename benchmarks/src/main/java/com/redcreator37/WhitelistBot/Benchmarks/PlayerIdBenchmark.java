@@ -0,0 +1,43 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.DataModels.PlayerIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation and parsing of the entered player identifiers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerIdBenchmark {
+
+    @Param({"steam:110000112345678", "license:1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b",
+            "steam:not valid!"})
+    public String id;
+
+    @Benchmark
+    public boolean checkIdInvalid() {
+        return CommandUtils.checkIdInvalid(id);
+    }
+
+    @Benchmark
+    public PlayerIdentifier parse() {
+        return PlayerIdentifier.parse(id);
+    }
+
+}
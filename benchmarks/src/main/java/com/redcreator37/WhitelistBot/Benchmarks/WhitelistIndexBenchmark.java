@@ -0,0 +1,110 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.DataModels.CompactWhitelist;
+import com.redcreator37.WhitelistBot.DataModels.WhitelistedPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the whitelist cache sets with the <code>ArrayList</code>
+ * the guilds used to keep their whitelists in, on the lookups and
+ * changes made by the whitelist commands
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelistIndexBenchmark {
+
+    /**
+     * The number of players already whitelisted
+     */
+    @Param({"1000", "10000", "100000"})
+    public int whitelisted;
+
+    /**
+     * The collection holding the whitelist
+     */
+    @Param({"ArrayList", "LinkedHashSet", "CompactWhitelist"})
+    public String index;
+
+    private Collection<WhitelistedPlayer> players;
+
+    /**
+     * The players which are looked up, half of them whitelisted
+     */
+    private WhitelistedPlayer[] lookups;
+
+    /**
+     * The players which aren't whitelisted yet
+     */
+    private WhitelistedPlayer[] added;
+
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        switch (index) {
+            case "ArrayList":
+                players = new ArrayList<>();
+                break;
+            case "LinkedHashSet":
+                players = new LinkedHashSet<>();
+                break;
+            default:
+                players = new CompactWhitelist();
+        }
+        for (int i = 0; i < whitelisted; i++) players.add(player(i));
+        lookups = new WhitelistedPlayer[1024];
+        added = new WhitelistedPlayer[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = player((i * 7919L) % (whitelisted * 2L));
+            added[i] = player(whitelisted + 1000000L + i);
+        }
+    }
+
+    /**
+     * Returns the player with a unique Steam identifier
+     *
+     * @param i the sequence number of the player
+     * @return the {@link WhitelistedPlayer}
+     */
+    private static WhitelistedPlayer player(long i) {
+        return new WhitelistedPlayer("steam:" + Long.toHexString(0x110000100000000L + i));
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return players.contains(lookups[next++ & 1023]);
+    }
+
+    /**
+     * Whitelists a new player and removes it again, which leaves the
+     * whitelist unchanged between the invocations
+     *
+     * @return whether the player was removed
+     */
+    @Benchmark
+    public boolean addAndRemove() {
+        WhitelistedPlayer player = added[next++ & 1023];
+        players.add(player);
+        return players.remove(player);
+    }
+
+}
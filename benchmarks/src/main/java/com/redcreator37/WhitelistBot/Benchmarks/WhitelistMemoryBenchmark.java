@@ -0,0 +1,73 @@
+package com.redcreator37.WhitelistBot.Benchmarks;
+
+import com.redcreator37.WhitelistBot.DataModels.CompactWhitelist;
+import com.redcreator37.WhitelistBot.DataModels.WhitelistedPlayer;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap retained by the whitelist caches per 100k players.
+ * JMH only measures allocation rates, so this runs as a plain program:
+ * <pre>java -cp target/benchmarks.jar com.redcreator37.WhitelistBot.Benchmarks.WhitelistMemoryBenchmark</pre>
+ * The results are printed and written to <code>whitelist-memory.json</code>.
+ */
+public class WhitelistMemoryBenchmark {
+
+    /**
+     * The number of players in each measured whitelist
+     */
+    private static final int PLAYERS = 100000;
+
+    /**
+     * Keeps the measured sets reachable
+     */
+    private static Object retained;
+
+    public static void main(String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : "whitelist-memory.json";
+        long hashSet = measure(LinkedHashSet::new), compact = measure(CompactWhitelist::new);
+        System.out.printf("LinkedHashSet: %d bytes per %d players (%.1f per player)%n",
+                hashSet, PLAYERS, hashSet / (double) PLAYERS);
+        System.out.printf("CompactWhitelist: %d bytes per %d players (%.1f per player)%n",
+                compact, PLAYERS, compact / (double) PLAYERS);
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.printf("{\"players\": %d, \"linkedHashSetBytes\": %d, \"compactWhitelistBytes\": %d}%n",
+                    PLAYERS, hashSet, compact);
+        }
+    }
+
+    /**
+     * Fills a set with Steam players and returns the heap it retains.
+     * The median of several runs is used to even out the noise.
+     *
+     * @param factory creates the set to measure
+     * @return the retained heap in bytes
+     */
+    private static long measure(Supplier<Set<WhitelistedPlayer>> factory) {
+        long[] runs = new long[5];
+        for (int run = 0; run < runs.length; run++) {
+            retained = null;
+            long before = usedHeap();
+            Set<WhitelistedPlayer> set = factory.get();
+            for (int i = 0; i < PLAYERS; i++)
+                set.add(new WhitelistedPlayer("steam:" + Long.toHexString(0x110000100000000L + i * 7919L)));
+            retained = set;
+            runs[run] = usedHeap() - before;
+        }
+        Arrays.sort(runs);
+        return runs[runs.length / 2];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.core.spec.EmbedCreateSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly a page of the <code>list</code> command is
+ * rendered into an embed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageRenderingBenchmark {
+
+    @Param({"10", "20", "100"})
+    public int pageSize;
+
+    private List<String> page;
+
+    /**
+     * Renders the pages, its guild isn't needed for the rendering
+     */
+    private final WhitelistPages pages = new WhitelistPages(null);
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++)
+            page.add("steam:" + Long.toHexString(0x110000100000000L + i));
+    }
+
+    @Benchmark
+    public EmbedCreateSpec render() {
+        EmbedCreateSpec spec = new EmbedCreateSpec();
+        pages.render(spec, page, 3, 50);
+        return spec;
+    }
+
+}
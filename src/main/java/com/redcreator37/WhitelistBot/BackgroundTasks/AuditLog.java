@@ -0,0 +1,273 @@
+package com.redcreator37.WhitelistBot.BackgroundTasks;
+
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import com.redcreator37.WhitelistBot.Database.BotHandling.AuditDb;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
+import discord4j.common.util.Snowflake;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Appends the whitelist changes to the audit log in the background.
+ * <p>
+ * Recording an entry only queues it, so the commands never wait for
+ * the database. The queued entries are written in batches, each in a
+ * single transaction, shortly after the first of them is queued or as
+ * soon as a full batch is waiting. Entries which couldn't be written
+ * are kept and retried, up to a limited number of waiting entries.
+ * Reading the history writes the waiting entries first, so it always
+ * includes the latest changes.
+ */
+public class AuditLog implements AutoCloseable {
+
+    /**
+     * The SQLite connection used exclusively for the appending
+     * transactions
+     */
+    private final Connection con;
+
+    /**
+     * The cached statements of {@link #con}
+     */
+    private final StatementCache statements;
+
+    private final AuditDb auditDb;
+
+    /**
+     * How long to wait after the first entry is queued before writing
+     * it, in milliseconds
+     */
+    private final long flushDelay;
+
+    /**
+     * The number of waiting entries which are written right away
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum number of waiting entries, after which the new ones
+     * are dropped
+     */
+    private final int capacity;
+
+    /**
+     * The entries waiting to be written, oldest first
+     */
+    private final Queue<AuditEntry> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of entries in {@link #pending}
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Whether a flush is already scheduled
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Whether the final flush has already been performed
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Whether the connection has been closed after the final flush,
+     * guarded by this instance's lock
+     */
+    private boolean released = false;
+
+    /**
+     * Runs the scheduled flushes
+     */
+    private final ScheduledExecutorService executor = Executors
+            .newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "audit-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Constructs a new AuditLog instance
+     *
+     * @param con        the connection to the local database, which
+     *                   mustn't be shared with other database users
+     *                   as the appending runs in transactions
+     * @param flushDelay how long to wait after the first entry is
+     *                   queued before writing it, in milliseconds
+     * @param batchSize  the number of waiting entries which are written
+     *                   without waiting for the delay
+     * @param capacity   the maximum number of entries waiting to be
+     *                   written
+     */
+    public AuditLog(Connection con, long flushDelay, int batchSize, int capacity) {
+        this.con = con;
+        this.statements = new StatementCache(con);
+        this.auditDb = new AuditDb(statements);
+        this.flushDelay = flushDelay;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues this entry to be appended to the audit log
+     *
+     * @param entry the {@link AuditEntry} to record
+     */
+    public void record(AuditEntry entry) {
+        int queued = size.incrementAndGet();
+        if (queued > capacity) {
+            size.decrementAndGet();
+            Metrics.AUDIT_DROPPED.inc();
+            return;
+        }
+        pending.add(entry);
+        Metrics.AUDIT_RECORDED.inc();
+        if (closed.get()) {
+            recordLate(entry);
+            return;
+        }
+        try {
+            if (queued % batchSize == 0) executor.execute(this::flush);
+            else if (scheduled.compareAndSet(false, true))
+                executor.schedule(this::flush, flushDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {   // closed since the check
+            recordLate(entry);
+        }
+    }
+
+    /**
+     * Writes this entry, which was queued while the log was being
+     * closed, as the final flush may already have run without it. If
+     * the connection is closed already, the entry is dropped instead.
+     *
+     * @param entry the queued {@link AuditEntry}
+     */
+    private synchronized void recordLate(AuditEntry entry) {
+        if (!released) flush();
+        else if (pending.remove(entry)) {   // otherwise the final flush has written it
+            size.decrementAndGet();
+            Metrics.AUDIT_DROPPED.inc();
+        }
+    }
+
+    /**
+     * Writes all waiting entries to the database, in batches of up to
+     * the batch size. The entries of a failed batch stay queued.
+     */
+    public synchronized void flush() {
+        scheduled.set(false);
+        while (!pending.isEmpty()) {
+            List<AuditEntry> batch = new ArrayList<>(Math.min(batchSize, size.get()));
+            AuditEntry entry;
+            while (batch.size() < batchSize && (entry = pending.poll()) != null) batch.add(entry);
+            if (!write(batch)) {
+                if (!closed.get() && scheduled.compareAndSet(false, true))   // retry later
+                    executor.schedule(this::flush, Math.max(flushDelay, 30000), TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes this batch of entries in a single transaction, or puts
+     * them back at the end of the queue if it fails
+     *
+     * @param batch the entries to write
+     * @return <code>true</code> if the batch was written
+     */
+    private boolean write(List<AuditEntry> batch) {
+        try {
+            con.setAutoCommit(false);
+            auditDb.addEntries(batch);
+            con.commit();
+            size.addAndGet(-batch.size());
+            return true;
+        } catch (SQLException ex) {
+            try {
+                con.rollback();
+            } catch (SQLException ignored) {
+                // the transaction is discarded either way
+            }
+            pending.addAll(batch);
+            System.err.println(MessageFormat.format(lc("writing-audit-log-failed-reason"),
+                    batch.size(), ex.getMessage()));
+            return false;
+        } finally {
+            try {
+                con.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // the next flush sets it again
+            }
+        }
+    }
+
+    /**
+     * Writes the waiting entries and returns one page of a guild's
+     * history, newest first, so the page includes the latest changes
+     *
+     * @param guildId    the snowflake of the guild
+     * @param identifier the identifier of the player whose entries to
+     *                   return or <code>null</code> to return all
+     * @param from       the earliest time of the returned entries
+     * @param before     the time of the last entry on the previous
+     *                   page, or the end of the time range for the
+     *                   first page
+     * @param beforeId   the ID of the last entry on the previous page,
+     *                   or <code>0</code> for the first page
+     * @param limit      the maximum number of returned entries
+     * @return the {@link List} of entries
+     * @throws SQLException on errors
+     * @see AuditDb#getHistory(Snowflake, String, Instant, Instant, long, int)
+     */
+    public synchronized List<AuditEntry> getHistory(Snowflake guildId, String identifier, Instant from,
+                                                    Instant before, long beforeId, int limit)
+            throws SQLException {
+        flush();
+        return auditDb.getHistory(guildId, identifier, from, before, beforeId, limit);
+    }
+
+    /**
+     * Returns the number of entries waiting to be written
+     *
+     * @return the number of waiting entries
+     */
+    public int getPending() {
+        return size.get();
+    }
+
+    /**
+     * Writes all waiting entries and closes the underlying connection
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        executor.shutdownNow();
+        synchronized (this) {
+            flush();
+            statements.close();
+            try {
+                con.close();
+            } catch (SQLException e) {
+                System.err.println(MessageFormat.format(lc("warn-db-close-failed"), e.getMessage()));
+            }
+            released = true;
+        }
+    }
+
+}
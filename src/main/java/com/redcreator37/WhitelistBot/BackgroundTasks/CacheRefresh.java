@@ -0,0 +1,203 @@
+package com.redcreator37.WhitelistBot.BackgroundTasks;
+
+import com.redcreator37.WhitelistBot.DataModels.CacheState;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.DataModels.GuildRegistry;
+import com.redcreator37.WhitelistBot.DataModels.SharedWhitelist;
+import com.redcreator37.WhitelistBot.Database.BotHandling.CachesDb;
+import com.redcreator37.WhitelistBot.Settings;
+import discord4j.common.util.Snowflake;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Refreshes the whitelist caches of the connected guilds in the
+ * background once they become older than the configured TTL.
+ * <p>
+ * Each guild gets a fixed offset of up to half the TTL added to its
+ * refresh time, and only a limited number of guilds is refreshed per
+ * run, so the shared databases aren't all queried at once. The refresh
+ * times are logged into the local database through {@link CachesDb}.
+ * Guilds using the same shared database also share its cache, so it's
+ * refreshed only once for all of them. On startup, the caches which
+ * were refreshed within the TTL are left to be loaded when they're due
+ * instead of all at once, see {@link CacheRefresh#isFresh(Snowflake)}.
+ */
+public class CacheRefresh implements Runnable {
+
+    private final CachesDb cachesDb;
+
+    /**
+     * The registry whose guilds are refreshed
+     */
+    private final GuildRegistry guilds;
+
+    /**
+     * How long a whitelist cache is considered fresh, in milliseconds
+     */
+    private final long ttl;
+
+    /**
+     * The maximum number of guilds to refresh in a single run
+     */
+    private final int maxPerRun;
+
+    /**
+     * The last refresh times as stored in the local database
+     */
+    private final Map<Snowflake, Instant> persisted = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the stored refresh times have already been read
+     */
+    private volatile boolean loaded = false;
+
+    /**
+     * Constructs a new CacheRefresh instance
+     *
+     * @param cachesDb the connection provider to the cache state
+     *                 database
+     * @param guilds   the registry whose guilds to refresh
+     */
+    public CacheRefresh(CachesDb cachesDb, GuildRegistry guilds) {
+        this.cachesDb = cachesDb;
+        this.guilds = guilds;
+        this.ttl = Math.max(1, Settings.getLong("cache.ttl-s", 900)) * 1000;
+        this.maxPerRun = Math.max(1, Settings.getInt("cache.max-refreshes-per-run", 10));
+    }
+
+    /**
+     * Runs a single round of cache refreshes
+     */
+    @Override
+    public void run() {
+        if (!loadPersisted()) return;
+        List<Guild> connected = guilds.snapshot().stream()
+                .filter(Guild::isConnected).collect(Collectors.toList());
+        connected.forEach(this::persistRefresh);   // record the loads made on connect
+        long now = System.currentTimeMillis();
+        Set<SharedWhitelist> due = Collections.newSetFromMap(new IdentityHashMap<>());
+        connected.stream().filter(guild -> dueAt(guild) <= now)
+                .sorted(Comparator.comparingLong(this::dueAt))
+                .filter(guild -> due.add(guild.getSharedWhitelist()))   // once per shared database
+                .limit(maxPerRun)
+                .collect(Collectors.toList())
+                .forEach(this::refresh);
+    }
+
+    /**
+     * Reads the stored refresh times, unless they've already been read
+     *
+     * @return <code>true</code> if the refresh times are available
+     */
+    private synchronized boolean loadPersisted() {
+        if (loaded) return true;
+        try {
+            cachesDb.getCacheState().forEach((guildId, state) ->
+                    persisted.putIfAbsent(guildId, state.getLastRefresh()));
+            loaded = true;
+        } catch (SQLException e) {
+            System.err.println(MessageFormat.format(lc("warn-cache-state-failed"), e.getMessage()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks whether this guild's cache was refreshed within the TTL,
+     * according to the stored refresh times. Such caches don't need to
+     * be loaded on startup, as the refreshes load them when they're due.
+     *
+     * @param guildId the snowflake of the guild
+     * @return <code>true</code> if the last stored refresh is fresh
+     */
+    public boolean isFresh(Snowflake guildId) {
+        if (!loadPersisted()) return false;
+        Instant logged = persisted.get(guildId);
+        return logged != null && logged.toEpochMilli() + ttl > System.currentTimeMillis();
+    }
+
+    /**
+     * Reloads the whitelist cache of this guild and logs the refresh
+     *
+     * @param guild the {@link Guild} to refresh
+     */
+    private void refresh(Guild guild) {
+        try {
+            guild.refreshWhitelist();
+            persistRefresh(guild);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println(MessageFormat.format(lc("refreshing-cache-failed-for-guild"),
+                    guild.getSnowflake().asString(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Logs the last refresh of this guild's cache into the local
+     * database, if it's newer than the logged one
+     *
+     * @param guild the {@link Guild} whose refresh to log
+     */
+    private void persistRefresh(Guild guild) {
+        Instant refreshed = guild.getLastRefresh();
+        Instant logged = persisted.get(guild.getSnowflake());
+        if (refreshed == null || (logged != null && !refreshed.isAfter(logged))) return;
+        try {
+            if (logged == null) cachesDb.logFirstRefresh(guild.getSnowflake());
+            cachesDb.logRefresh(new CacheState(guild.getSnowflake(), refreshed));
+            persisted.put(guild.getSnowflake(), refreshed);
+        } catch (SQLException e) {
+            System.err.println(MessageFormat.format(lc("warn-cache-state-failed"), e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the time when this guild's cache should be refreshed
+     *
+     * @param guild the {@link Guild} to check
+     * @return the due time in epoch milliseconds
+     */
+    private long dueAt(Guild guild) {
+        Instant last = guild.getLastRefresh();
+        Instant logged = persisted.get(guild.getSnowflake());
+        if (last == null || (logged != null && logged.isAfter(last))) last = logged;
+        long base = last == null ? 0 : last.toEpochMilli();
+        return base + ttl + offset(guild.getSnowflake());
+    }
+
+    /**
+     * Returns the fixed refresh offset of this guild, which spreads the
+     * refreshes of guilds loaded at the same time over half the TTL
+     *
+     * @param guildId the snowflake of the guild
+     * @return the offset in milliseconds
+     */
+    private long offset(Snowflake guildId) {
+        long mixed = guildId.asLong() * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(mixed ^ (mixed >>> 32), Math.max(1, ttl / 2));
+    }
+
+    /**
+     * Forgets the logged refresh of this guild, which is needed when the
+     * guild is removed
+     *
+     * @param guildId the snowflake of the guild
+     * @throws SQLException on errors
+     */
+    public void forget(Snowflake guildId) throws SQLException {
+        cachesDb.clearCacheData(guildId);
+        persisted.remove(guildId);
+    }
+
+}
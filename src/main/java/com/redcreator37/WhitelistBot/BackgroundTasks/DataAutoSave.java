@@ -4,67 +4,207 @@ import com.redcreator37.WhitelistBot.DataModels.Guild;
 import com.redcreator37.WhitelistBot.Database.BotHandling.DbInstances;
 import com.redcreator37.WhitelistBot.Database.BotHandling.GuildsDb;
 import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
-import com.redcreator37.WhitelistBot.DiscordBot;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import discord4j.common.util.Snowflake;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.redcreator37.WhitelistBot.Localizations.lc;
 
 /**
- * Saves the data to the internal database in the background
+ * Saves the changed guild data to the internal database in the
+ * background.
+ * <p>
+ * Guilds are marked as dirty when their data changes and are written
+ * shortly afterwards, all in a single transaction. Guilds which haven't
+ * changed are never written.
  */
-public class DataAutoSave implements Runnable {
+public class DataAutoSave implements AutoCloseable {
+
+    /**
+     * The SQLite connection used exclusively for the saving
+     * transactions
+     */
+    private final Connection con;
+
+    /**
+     * The cached statements of {@link #con}
+     */
+    private final StatementCache statements;
 
     private final DbInstances dbInstances;
 
     private final GuildsDb guildsDb;
 
+    /**
+     * How long to wait after the first change before writing it,
+     * in milliseconds
+     */
+    private final long flushDelay;
+
+    /**
+     * The guilds with unsaved changes
+     */
+    private final Map<Snowflake, Guild> dirty = new ConcurrentHashMap<>();
+
+    /**
+     * The removed guilds, whose data mustn't be written anymore even if
+     * a command still running on them marks them as changed
+     */
+    private final Map<Snowflake, Guild> removed = new ConcurrentHashMap<>();
+
+    /**
+     * The removed guilds as they were when the last flush started,
+     * which are forgotten when the next one starts, as a whole flush
+     * has run since their removal by then. Guarded by this instance's
+     * lock.
+     */
+    private Map<Snowflake, Guild> expiring = new HashMap<>();
+
+    /**
+     * Whether a flush is already scheduled
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Whether the final flush has already been performed
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Runs the scheduled flushes
+     */
+    private final ScheduledExecutorService executor = Executors
+            .newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "data-autosave");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     /**
      * Constructs a new DataAutoSave instance
      *
-     * @param dbInstances the connection provider to the external
-     *                    database instances database
-     * @param guildsDb    the connection provider to the guilds
-     *                    database
+     * @param con        the connection to the local database, which
+     *                   mustn't be shared with other database users
+     *                   as the saving runs in transactions
+     * @param flushDelay how long to wait after the first change before
+     *                   writing it, in milliseconds
      */
-    public DataAutoSave(DbInstances dbInstances, GuildsDb guildsDb) {
-        this.dbInstances = dbInstances;
-        this.guildsDb = guildsDb;
+    public DataAutoSave(Connection con, long flushDelay) {
+        this.con = con;
+        this.statements = new StatementCache(con);
+        this.dbInstances = new DbInstances(statements);
+        this.guildsDb = new GuildsDb(statements);
+        this.flushDelay = flushDelay;
     }
 
     /**
-     * Runs the auto-save process
+     * Marks the data of this guild as changed and schedules it to be
+     * written to the database
+     *
+     * @param guild the changed {@link Guild}
      */
-    @Override
-    public void run() {
-        System.out.println(lc("saving-data-do-not-stop"));
-        DiscordBot.guilds.values().forEach(guild -> {
-            try {
-                updateProviderNullSafe(guild);
+    public void markDirty(Guild guild) {
+        Guild gone = removed.get(guild.getSnowflake());
+        if (gone == guild) return;
+        if (gone != null) removed.remove(guild.getSnowflake(), gone);   // registered again
+        dirty.put(guild.getSnowflake(), guild);
+        if (!closed.get() && scheduled.compareAndSet(false, true))
+            executor.schedule(this::flush, flushDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the unsaved changes of this guild and stops it from being
+     * written again, which is needed when the guild is removed. Waits
+     * for a running flush to finish, so the guild's data can be deleted
+     * afterwards without the flush writing it back.
+     *
+     * @param guild the removed {@link Guild}
+     */
+    public synchronized void discard(Guild guild) {
+        removed.put(guild.getSnowflake(), guild);
+        dirty.remove(guild.getSnowflake());
+    }
+
+    /**
+     * Writes the data of all dirty guilds to the database in a single
+     * transaction. Guilds whose data couldn't be written stay dirty.
+     */
+    public synchronized void flush() {
+        scheduled.set(false);
+        expiring.forEach(removed::remove);
+        expiring = new HashMap<>(removed);
+        if (dirty.isEmpty()) return;
+        List<Guild> batch = new ArrayList<>(dirty.size());
+        for (Snowflake id : dirty.keySet()) {
+            Guild guild = dirty.remove(id);
+            if (guild != null && removed.get(id) != guild) batch.add(guild);
+        }
+        try {
+            con.setAutoCommit(false);
+            for (Guild guild : batch) {
+                saveProvider(guild);
                 if (guild.getAdminRole() != null)
                     guildsDb.updateAdminRole(guild);
-            } catch (SQLException ex) {
-                System.err.println(MessageFormat.format(lc("writing-guild-data-failed-reason"),
-                        guild.getSnowflake().toString(), ex.getMessage()));
             }
-        });
+            con.commit();
+        } catch (SQLException ex) {
+            try {
+                con.rollback();
+            } catch (SQLException ignored) {
+                // the transaction is discarded either way
+            }
+            batch.forEach(guild -> dirty.putIfAbsent(guild.getSnowflake(), guild));
+            System.err.println(MessageFormat.format(lc("writing-guild-data-failed-reason"),
+                    batch.size(), ex.getMessage()));
+            if (!closed.get() && scheduled.compareAndSet(false, true))   // retry later
+                executor.schedule(this::flush, Math.max(flushDelay, 30000), TimeUnit.MILLISECONDS);
+        } finally {
+            try {
+                con.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // the next flush sets it again
+            }
+        }
     }
 
     /**
-     * Performs a null-safe update of the data about this guild's
-     * {@link SharedDbProvider}. The data is either updated or
-     * inserted, based on the current internal database state
+     * Writes the data about this guild's {@link SharedDbProvider}, if
+     * it has one
      *
      * @param guild the {@link Guild} with the relevant provider object
      * @throws SQLException on errors
      */
-    private void updateProviderNullSafe(Guild guild) throws SQLException {
+    private void saveProvider(Guild guild) throws SQLException {
         SharedDbProvider instance = guild.getSharedDbProvider();
-        if (instance != null) { // use a different operation when registering a new instance
-            SharedDbProvider current = dbInstances.getByGuild(guild.getSnowflake());
-            if (current == null) dbInstances.registerInstance(guild.getSharedDbProvider());
-            else dbInstances.updateInstance(guild.getSharedDbProvider());
+        if (instance != null) dbInstances.saveInstance(instance);
+    }
+
+    /**
+     * Writes all pending changes and closes the underlying connection
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        executor.shutdownNow();
+        System.out.println(lc("saving-data-do-not-stop"));
+        flush();
+        statements.close();
+        try {
+            con.close();
+        } catch (SQLException e) {
+            System.err.println(MessageFormat.format(lc("warn-db-close-failed"), e.getMessage()));
         }
     }
 
@@ -0,0 +1,113 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.BackgroundTasks.AuditLog;
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import discord4j.common.util.Snowflake;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.rest.util.Color;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * The pages of a guild's whitelist history, newest first. The cursor
+ * of a page is the time and the ID of the last entry on the page before
+ * it, in the form <code>time:id</code>.
+ */
+public class AuditPages implements PageSource {
+
+    /**
+     * The format of the entries' times, which are shown in UTC
+     */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneOffset.UTC);
+
+    /**
+     * The maximum number of entries on a page, which keeps the longest
+     * entries within the embed's description length limit
+     */
+    private static final int MAX_ENTRIES = 15;
+
+    private final AuditLog auditLog;
+
+    private final Snowflake guildId;
+
+    /**
+     * The identifier of the player whose entries to show or
+     * <code>null</code> to show all
+     */
+    private final String identifier;
+
+    /**
+     * The earliest time of the shown entries
+     */
+    private final Instant from;
+
+    /**
+     * The time before which the shown entries were made
+     */
+    private final Instant to;
+
+    /**
+     * Constructs a new AuditPages instance
+     *
+     * @param auditLog   the {@link AuditLog} to read from
+     * @param guildId    the snowflake of the guild whose history to show
+     * @param identifier the identifier of the player whose entries to
+     *                   show or <code>null</code> to show all
+     * @param from       the earliest time of the shown entries
+     * @param to         the time before which the shown entries were
+     *                   made
+     */
+    public AuditPages(AuditLog auditLog, Snowflake guildId, String identifier, Instant from, Instant to) {
+        this.auditLog = auditLog;
+        this.guildId = guildId;
+        this.identifier = identifier;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Page load(String cursor, int limit) throws SQLException {
+        Instant before = to;
+        long beforeId = 0;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            before = Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, separator)));
+            beforeId = Long.parseLong(cursor.substring(separator + 1));
+        }
+        int size = Math.min(limit, MAX_ENTRIES);
+        List<AuditEntry> entries = auditLog.getHistory(guildId, identifier, from, before, beforeId, size);
+        List<String> lines = new ArrayList<>(entries.size());
+        for (AuditEntry entry : entries)
+            lines.add(MessageFormat.format(lc("audit-entry-format"), TIME_FORMAT.format(entry.getCreated()),
+                    lc(entry.getAction() == AuditEntry.Action.WHITELIST ? "audit-whitelisted" : "audit-unlisted"),
+                    entry.getIdentifier(), entry.getActorId().asString()));
+        if (entries.size() < size) return new Page(lines, null);
+        AuditEntry last = entries.get(entries.size() - 1);
+        return new Page(lines, last.getCreated().toEpochMilli() + ":" + last.getId());
+    }
+
+    @Override
+    public int countPages(int pageSize) {
+        return 0;
+    }
+
+    @Override
+    public void render(EmbedCreateSpec spec, List<String> lines, int page, int pages) {
+        spec.setTitle(MessageFormat.format(lc("whitelist-history-format"), page + 1));
+        spec.setColor(Color.BLUE);
+        if (lines.isEmpty()) spec.setDescription(lc("no-history"));
+        else spec.setDescription(String.join("\n", lines));
+        if (pages > 1) spec.setFooter(lc("react-to-switch-pages"), null);
+        spec.setTimestamp(Instant.now());
+    }
+
+}
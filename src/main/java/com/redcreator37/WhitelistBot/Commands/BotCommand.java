@@ -1,7 +1,10 @@
 package com.redcreator37.WhitelistBot.Commands;
 
 import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.DiscordBot;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
 import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Member;
 import discord4j.rest.util.Color;
 import reactor.core.publisher.Mono;
 
@@ -61,19 +64,23 @@ public abstract class BotCommand {
      * @return <code>true</code> if the user <strong>has</strong> the
      * permission, <code>false</code> otherwise
      */
-    private boolean checkAllowed(MessageCreateEvent event, String requiredRole) {
-        if (!event.getMember().isPresent()) return false;
-        else if (requiredRole == null) return true;
-        boolean permission = CommandUtils.findRole(event.getMember().get(), requiredRole) != null;
-        if (!permission) CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            spec.setTitle(lc("permission-denied"));
-            spec.setColor(Color.RED);
-            spec.setAuthor(event.getMember().get().getUsername(), null, null);
-            spec.addField(lc("no-permission-to-use-command"), MessageFormat
-                    .format(lc("required-role"), requiredRole), false);
-            spec.setTimestamp(Instant.now());
-        }).block();
-        return permission;
+    private Mono<Boolean> checkAllowed(MessageCreateEvent event, String requiredRole) {
+        if (!event.getMember().isPresent()) return Mono.just(false);
+        else if (requiredRole == null) return Mono.just(true);
+        Member member = event.getMember().get();
+        return DiscordBot.getPermissions().hasRole(member, requiredRole).flatMap(permission -> {
+            if (permission) return Mono.just(true);
+            Metrics.PERMISSION_DENIALS.inc(name);
+            String key = "permission-denied:" + member.getId().asString() + ":" + name;
+            return CommandUtils.replyEmbed(event, key, spec -> {
+                spec.setTitle(lc("permission-denied"));
+                spec.setColor(Color.RED);
+                spec.setAuthor(member.getUsername(), null, null);
+                spec.addField(lc("no-permission-to-use-command"), MessageFormat
+                        .format(lc("required-role"), requiredRole), false);
+                spec.setTimestamp(Instant.now());
+            }).thenReturn(false);
+        });
     }
 
     /**
@@ -87,28 +94,27 @@ public abstract class BotCommand {
      *                    the message was sent
      * @param guild       the {@link Guild} in which the {@link MessageCreateEvent}
      *                    occurred
-     * @return If the requirements are met,  <code>false</code>, otherwise
+     * @return If the requirements are met, <code>true</code>, otherwise
      * <code>false</code>.
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     public Mono<Boolean> checkValidity(List<String> enteredArgs, MessageCreateEvent event, Guild guild) {
         long countReq = arguments.values().stream().filter(req -> req).count();
-        if (checkAllowed(event, guild.getAdminRole())
-                && (enteredArgs == null || enteredArgs.size() >= countReq))
-            return Mono.just(true);
-        CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            spec.setTitle(lc("syntax-error"));
-            spec.setColor(Color.RED);
-            StringBuilder args = new StringBuilder(100);
-            arguments.forEach((argName, req) ->
-                    args.append(MessageFormat.format(req ? "<{0}> " : "*[{0}]* ", argName)));
-            spec.addField(MessageFormat.format(lc("usage-of"), name),
-                    args.toString(), false);
-            spec.setDescription(description);
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).block();
-        return Mono.just(false);
+        return checkAllowed(event, guild.getAdminRole()).flatMap(allowed -> {
+            if (!allowed) return Mono.just(false);
+            if (enteredArgs == null || enteredArgs.size() >= countReq) return Mono.just(true);
+            Metrics.SYNTAX_ERRORS.inc(name);
+            return CommandUtils.replySelfEmbed(event, "syntax-error:" + name, spec -> {
+                spec.setTitle(lc("syntax-error"));
+                spec.setColor(Color.RED);
+                StringBuilder args = new StringBuilder(100);
+                arguments.forEach((argName, req) ->
+                        args.append(MessageFormat.format(req ? "<{0}> " : "*[{0}]* ", argName)));
+                spec.addField(MessageFormat.format(lc("usage-of"), name),
+                        args.toString(), false);
+                spec.setDescription(description);
+                spec.setTimestamp(Instant.now());
+            }).thenReturn(false);
+        });
     }
 
     /**
@@ -0,0 +1,61 @@
+package com.redcreator37.WhitelistBot.Commands.BotCommands;
+
+import com.redcreator37.WhitelistBot.Commands.BotCommand;
+import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import com.redcreator37.WhitelistBot.DataModels.BulkResult;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
+import com.redcreator37.WhitelistBot.Localizations;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Removes multiple players from the in-game whitelist at once, whose
+ * identifiers were specified in the message
+ */
+public class BulkUnlist extends BotCommand {
+
+    public BulkUnlist() {
+        super("bulkunlist", Localizations.lc("bulk-unlists-players"),
+                new HashMap<String, Boolean>() {{
+                    put("playerIds", true);
+                }});
+    }
+
+    /**
+     * Runs the action for this command
+     *
+     * @param args    the command arguments entered, can be <code>null</code>
+     *                if none are required
+     * @param context the {@link Guild} context in which to run the
+     *                command. Can be <code>null</code> if no guild is
+     *                tied to the command's working.
+     * @param event   the {@link MessageCreateEvent} which occurred
+     *                when the message was sent
+     * @return an empty {@link Mono} object
+     */
+    @Override
+    public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
+        List<String> valid = new ArrayList<>(), invalid = new ArrayList<>();
+        CommandUtils.parsePlayerIds(args).forEach(id ->
+                (CommandUtils.checkIdInvalid(id) ? invalid : valid).add(id));
+        return this.checkValidity(args, event, context).filter(ok -> ok)
+                .filterWhen(ok -> CommandUtils.checkDbNotPresent(event, context).map(missing -> !missing))
+                .flatMap(ok -> valid.isEmpty() ? Mono.just(new BulkResult())
+                        : DatabaseScheduler.call(() -> context.unlistPlayers(valid)))
+                .doOnNext(result -> CommandUtils.recordAudit(event, context, AuditEntry.Action.UNLIST,
+                        result.getSucceeded()))
+                .flatMap(result -> {
+                    invalid.forEach(id -> result.addFailed(id, lc("invalid-id")));
+                    return CommandUtils.bulkResultEmbed(event, result, lc("bulk-unlist-result"),
+                            lc("unlisted-count"), lc("not-whitelisted-count"));
+                }).then();
+    }
+}
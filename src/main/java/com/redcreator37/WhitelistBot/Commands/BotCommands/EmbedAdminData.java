@@ -34,25 +34,23 @@ public class EmbedAdminData extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        return CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            if (context.getAdminRole() == null) {
-                spec.setTitle(Localizations.lc("no-admin-defined"));
-                spec.setColor(Color.RED);
-                spec.addField(Localizations.lc("no-admin-yet"), MessageFormat
-                        .format(Localizations.lc("use-to-set-admin"), DiscordBot.cmdPrefix), false);
-            } else {
-                spec.setTitle(Localizations.lc("admin-data"));
-                spec.setColor(Color.YELLOW);
-                spec.addField(MessageFormat.format(Localizations.lc("current-admin-role"),
-                        context.getAdminRole()), MessageFormat.format(Localizations
-                        .lc("use-to-set-admin"), DiscordBot.cmdPrefix), false);
-            }
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).then();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .flatMap(valid -> CommandUtils.replySelfEmbed(event, spec -> {
+                    if (context.getAdminRole() == null) {
+                        spec.setTitle(Localizations.lc("no-admin-defined"));
+                        spec.setColor(Color.RED);
+                        spec.addField(Localizations.lc("no-admin-yet"), MessageFormat
+                                .format(Localizations.lc("use-to-set-admin"), DiscordBot.cmdPrefix), false);
+                    } else {
+                        spec.setTitle(Localizations.lc("admin-data"));
+                        spec.setColor(Color.YELLOW);
+                        spec.addField(MessageFormat.format(Localizations.lc("current-admin-role"),
+                                context.getAdminRole()), MessageFormat.format(Localizations
+                                .lc("use-to-set-admin"), DiscordBot.cmdPrefix), false);
+                    }
+                    spec.setTimestamp(Instant.now());
+                })).then();
     }
 }
@@ -35,22 +35,20 @@ public class EmbedDatabaseData extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        if (CommandUtils.checkDbNotPresent(event, context)) return Mono.empty();
-        return CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            SharedDbProvider provider = context.getSharedDbProvider();
-            spec.setTitle(Localizations.lc("db-connect-data"));
-            spec.setColor(Color.GREEN);
-            spec.addField(Localizations.lc("server"), provider.getDbServer(), true);
-            spec.addField(Localizations.lc("db-name"), provider.getDbName(), true);
-            spec.addField(Localizations.lc("username"), provider.getUsername(), true);
-            spec.setDescription(MessageFormat.format(Localizations.lc("to-change-db-run"),
-                    DiscordBot.cmdPrefix));
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).then();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .filterWhen(valid -> CommandUtils.checkDbNotPresent(event, context).map(missing -> !missing))
+                .flatMap(valid -> CommandUtils.replySelfEmbed(event, spec -> {
+                    SharedDbProvider provider = context.getSharedDbProvider();
+                    spec.setTitle(Localizations.lc("db-connect-data"));
+                    spec.setColor(Color.GREEN);
+                    spec.addField(Localizations.lc("server"), provider.getDbServer(), true);
+                    spec.addField(Localizations.lc("db-name"), provider.getDbName(), true);
+                    spec.addField(Localizations.lc("username"), provider.getUsername(), true);
+                    spec.setDescription(MessageFormat.format(Localizations.lc("to-change-db-run"),
+                            DiscordBot.cmdPrefix));
+                    spec.setTimestamp(Instant.now());
+                })).then();
     }
 }
@@ -0,0 +1,169 @@
+package com.redcreator37.WhitelistBot.Commands.BotCommands;
+
+import com.redcreator37.WhitelistBot.Commands.BotCommand;
+import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
+import com.redcreator37.WhitelistBot.Localizations;
+import discord4j.common.util.Snowflake;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Message;
+import discord4j.rest.util.Color;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Sends the whitelist of this guild as an attached file, one identifier
+ * per line. The identifiers are streamed from the game database into a
+ * temporary file, which is uploaded and deleted afterwards. The export
+ * runs apart from the guild's command lane, and only one export can run
+ * in a guild at a time.
+ */
+public class ExportWhitelist extends BotCommand {
+
+    /**
+     * The guilds with an export currently running
+     */
+    private static final Set<Snowflake> running = ConcurrentHashMap.newKeySet();
+
+    public ExportWhitelist() {
+        super("export", Localizations.lc("exports-whitelist"), null);
+    }
+
+    /**
+     * Runs the action for this command
+     *
+     * @param args    the command arguments entered, can be <code>null</code>
+     *                if none are required
+     * @param context the {@link Guild} context in which to run the
+     *                command. Can be <code>null</code> if no guild is
+     *                tied to the command's working.
+     * @param event   the {@link MessageCreateEvent} which occurred
+     *                when the message was sent
+     * @return an empty {@link Mono} object
+     */
+    @Override
+    public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
+        Snowflake guildId = context.getSnowflake();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .filterWhen(valid -> CommandUtils.checkDbNotPresent(event, context).map(missing -> !missing))
+                .filterWhen(valid -> checkNotRunning(event, guildId))
+                // runs apart from the guild's lane, which would otherwise be blocked until it's done
+                .doOnNext(valid -> runExport(context, event)
+                        .doFinally(signal -> running.remove(guildId))
+                        .subscribe(null, e -> System.err.println(MessageFormat
+                                .format(lc("error-format"), e.getMessage()))))
+                .then();
+    }
+
+    /**
+     * Marks an export as running in this guild, unless one already is,
+     * and embeds the reason if it is
+     *
+     * @param event   the {@link MessageCreateEvent} which occurred when
+     *                the message was sent
+     * @param guildId the snowflake of the guild
+     * @return <code>true</code> if the export may start
+     */
+    private static Mono<Boolean> checkNotRunning(MessageCreateEvent event, Snowflake guildId) {
+        if (running.add(guildId)) return Mono.just(true);
+        return CommandUtils.replyEmbed(event, spec -> {
+            spec.setColor(Color.RED);
+            spec.setTitle(lc("export-already-running"));
+            spec.setDescription(lc("wait-for-export"));
+            spec.setTimestamp(Instant.now());
+        }).thenReturn(false);
+    }
+
+    /**
+     * Exports the whitelist of this guild into a temporary file and
+     * uploads it
+     *
+     * @param guild the {@link Guild} whose whitelist to export
+     * @param event the {@link MessageCreateEvent} of the command
+     * @return a {@link Mono} completing once the file is uploaded
+     */
+    private static Mono<?> runExport(Guild guild, MessageCreateEvent event) {
+        AtomicInteger count = new AtomicInteger();
+        String name = "whitelist-" + guild.getSnowflake().asString() + ".csv";
+        return DatabaseScheduler.call(() -> export(guild, count))
+                .flatMap(file -> Mono.using(() -> Files.newInputStream(file),
+                        in -> CommandUtils.replyFile(event, name, in, spec -> {
+                            spec.setColor(Color.GREEN);
+                            spec.setTitle(lc("whitelist-exported"));
+                            spec.setDescription(MessageFormat.format(lc("exported-count"), count.get()));
+                            spec.setTimestamp(Instant.now());
+                        }),
+                        in -> discard(in, file)))
+                .onErrorResume(SQLException.class, e -> failed(event, e))
+                .onErrorResume(IOException.class, e -> failed(event, e));
+    }
+
+    /**
+     * Writes the whitelist of this guild into a new temporary file
+     *
+     * @param guild the {@link Guild} whose whitelist to export
+     * @param count set to the number of exported identifiers
+     * @return the {@link Path} of the temporary file
+     * @throws SQLException on database errors
+     * @throws IOException  on file errors
+     */
+    private static Path export(Guild guild, AtomicInteger count) throws SQLException, IOException {
+        Path file = Files.createTempFile("whitelist-", ".csv");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            count.set(guild.exportWhitelist(out));
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Closes the stream of this temporary file and deletes the file
+     *
+     * @param in   the {@link InputStream} reading the file
+     * @param file the {@link Path} of the file
+     */
+    private static void discard(InputStream in, Path file) {
+        try {
+            in.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println(MessageFormat.format(lc("error-format"), e.getMessage()));
+        }
+    }
+
+    /**
+     * Embeds the reason the export failed
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param e     the error which stopped the export
+     * @return the sent {@link Message}
+     */
+    private static Mono<Message> failed(MessageCreateEvent event, Exception e) {
+        return CommandUtils.replyEmbed(event, spec -> {
+            spec.setColor(Color.RED);
+            spec.setTitle(lc("export-failed"));
+            spec.addField(lc("error"), String.valueOf(e.getMessage()), false);
+            spec.setTimestamp(Instant.now());
+        });
+    }
+
+}
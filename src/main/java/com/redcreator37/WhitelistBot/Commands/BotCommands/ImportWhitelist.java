@@ -0,0 +1,226 @@
+package com.redcreator37.WhitelistBot.Commands.BotCommands;
+
+import com.redcreator37.WhitelistBot.Commands.BotCommand;
+import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.Commands.WhitelistImport;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
+import com.redcreator37.WhitelistBot.Localizations;
+import com.redcreator37.WhitelistBot.Settings;
+import discord4j.common.util.Snowflake;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Attachment;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.rest.util.Color;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Whitelists the players listed in the file attached to the message,
+ * which is streamed into the game database in chunks. A single message
+ * shows the progress and is updated until the import is done. The
+ * import runs apart from the guild's command lane, and only one import
+ * can run in a guild at a time.
+ */
+public class ImportWhitelist extends BotCommand {
+
+    /**
+     * How often the progress message is updated
+     */
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(3);
+
+    /**
+     * The maximum size of the imported file, in bytes
+     */
+    private static final long MAX_SIZE = Math.max(1, Settings.getLong("import.max-size-kib", 8192)) * 1024;
+
+    /**
+     * The number of players whitelisted in a single transaction
+     */
+    private static final int CHUNK_SIZE = Math.max(1, Math.min(10000, Settings.getInt("import.chunk-size", 1000)));
+
+    /**
+     * The guilds with an import currently running
+     */
+    private static final Set<Snowflake> running = ConcurrentHashMap.newKeySet();
+
+    public ImportWhitelist() {
+        super("import", Localizations.lc("imports-whitelist"), null);
+    }
+
+    /**
+     * Runs the action for this command
+     *
+     * @param args    the command arguments entered, can be <code>null</code>
+     *                if none are required
+     * @param context the {@link Guild} context in which to run the
+     *                command. Can be <code>null</code> if no guild is
+     *                tied to the command's working.
+     * @param event   the {@link MessageCreateEvent} which occurred
+     *                when the message was sent
+     * @return an empty {@link Mono} object
+     */
+    @Override
+    public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
+        Attachment file = event.getMessage().getAttachments().stream().findFirst().orElse(null);
+        Snowflake guildId = context.getSnowflake();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .filterWhen(valid -> CommandUtils.checkDbNotPresent(event, context).map(missing -> !missing))
+                .filterWhen(valid -> checkFile(event, file))
+                .filterWhen(valid -> checkNotRunning(event, guildId))
+                // runs apart from the guild's lane, which would otherwise be blocked until it's done
+                .doOnNext(valid -> runImport(context, event, file)
+                        .doFinally(signal -> running.remove(guildId))
+                        .subscribe(null, e -> System.err.println(MessageFormat
+                                .format(lc("error-format"), e.getMessage()))))
+                .then();
+    }
+
+    /**
+     * Marks an import as running in this guild, unless one already is,
+     * and embeds the reason if it is
+     *
+     * @param event   the {@link MessageCreateEvent} which occurred when
+     *                the message was sent
+     * @param guildId the snowflake of the guild
+     * @return <code>true</code> if the import may start
+     */
+    private static Mono<Boolean> checkNotRunning(MessageCreateEvent event, Snowflake guildId) {
+        if (running.add(guildId)) return Mono.just(true);
+        return CommandUtils.replyEmbed(event, spec -> {
+            spec.setColor(Color.RED);
+            spec.setTitle(lc("import-already-running"));
+            spec.setDescription(lc("wait-for-import"));
+            spec.setTimestamp(Instant.now());
+        }).thenReturn(false);
+    }
+
+    /**
+     * Imports the attached file and keeps a single message with the
+     * progress updated until it's done
+     *
+     * @param guild the {@link Guild} to import the players into
+     * @param event the {@link MessageCreateEvent} of the command
+     * @param file  the {@link Attachment} to import
+     * @return a {@link Mono} completing once the import is done
+     */
+    private static Mono<?> runImport(Guild guild, MessageCreateEvent event, Attachment file) {
+        WhitelistImport job = new WhitelistImport(guild, event, CHUNK_SIZE);
+        Mono<Optional<String>> work = DatabaseScheduler.call(() -> read(file, job)).cache();
+        return CommandUtils.replyEmbed(event, spec -> renderProgress(spec, job))
+                .flatMap(message -> Flux.interval(PROGRESS_INTERVAL).takeUntilOther(work)
+                        .concatMap(tick -> message.edit(edit -> edit.setEmbed(spec ->
+                                renderProgress(spec, job))))
+                        .then(work)
+                        .flatMap(fail -> message.edit(edit -> edit.setEmbed(spec ->
+                                renderResult(spec, job, fail.orElse(job.getError()))))));
+    }
+
+    /**
+     * Checks whether a file was attached and isn't too large, and embeds
+     * the reason if it can't be imported
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param file  the attached file or <code>null</code> if there's
+     *              none
+     * @return <code>true</code> if the file can be imported
+     */
+    private static Mono<Boolean> checkFile(MessageCreateEvent event, Attachment file) {
+        if (file != null && file.getSize() <= MAX_SIZE) return Mono.just(true);
+        return CommandUtils.replyEmbed(event, spec -> {
+            spec.setColor(Color.RED);
+            if (file == null) {
+                spec.setTitle(lc("no-file-attached"));
+                spec.setDescription(lc("attach-whitelist-file"));
+            } else {
+                spec.setTitle(lc("file-too-large"));
+                spec.setDescription(MessageFormat.format(lc("max-file-size"), MAX_SIZE / 1024));
+            }
+            spec.setTimestamp(Instant.now());
+        }).thenReturn(false);
+    }
+
+    /**
+     * Downloads the attached file and imports it as it's read
+     *
+     * @param file the {@link Attachment} to import
+     * @param job  the {@link WhitelistImport} to run
+     * @return an empty {@link Optional} if the file was read or the
+     * error message
+     */
+    private static Optional<String> read(Attachment file, WhitelistImport job) {
+        try {
+            URLConnection con = new URL(file.getUrl()).openConnection();
+            con.setConnectTimeout(10000);
+            con.setReadTimeout(30000);
+            try (Reader reader = new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8)) {
+                job.run(reader);
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            return Optional.of(e.getMessage());
+        }
+    }
+
+    /**
+     * Renders the progress of this import into the embed
+     *
+     * @param spec the {@link EmbedCreateSpec} to render into
+     * @param job  the running {@link WhitelistImport}
+     */
+    private static void renderProgress(EmbedCreateSpec spec, WhitelistImport job) {
+        spec.setTitle(lc("importing-whitelist"));
+        spec.setColor(Color.YELLOW);
+        addCounts(spec, job);
+        spec.setTimestamp(Instant.now());
+    }
+
+    /**
+     * Renders the result of this import into the embed
+     *
+     * @param spec  the {@link EmbedCreateSpec} to render into
+     * @param job   the finished {@link WhitelistImport}
+     * @param error the reason the import stopped or <code>null</code>
+     *              if it didn't fail
+     */
+    private static void renderResult(EmbedCreateSpec spec, WhitelistImport job, String error) {
+        spec.setTitle(lc(error == null ? "import-finished" : "import-failed"));
+        spec.setColor(error == null ? Color.GREEN : Color.RED);
+        addCounts(spec, job);
+        if (!job.getInvalidKept().isEmpty())
+            spec.addField(lc("first-invalid-ids"), "`" + String.join("`\n`", job.getInvalidKept()) + "`", false);
+        if (error != null) spec.addField(lc("error"), error, false);
+        spec.setTimestamp(Instant.now());
+    }
+
+    /**
+     * Adds the counters of this import to the embed
+     *
+     * @param spec the {@link EmbedCreateSpec} to add the counters to
+     * @param job  the {@link WhitelistImport}
+     */
+    private static void addCounts(EmbedCreateSpec spec, WhitelistImport job) {
+        spec.addField(lc("lines-read"), String.valueOf(job.getLinesRead()), true);
+        spec.addField(lc("imported"), String.valueOf(job.getImported()), true);
+        spec.addField(lc("already-whitelisted"), String.valueOf(job.getUnchanged()), true);
+        spec.addField(lc("invalid-ids"), String.valueOf(job.getInvalid()), true);
+    }
+
+}
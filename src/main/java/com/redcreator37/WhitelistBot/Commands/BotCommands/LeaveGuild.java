@@ -6,13 +6,11 @@ import com.redcreator37.WhitelistBot.DataModels.Guild;
 import com.redcreator37.WhitelistBot.DiscordBot;
 import com.redcreator37.WhitelistBot.Localizations;
 import discord4j.core.event.domain.message.MessageCreateEvent;
-import discord4j.core.object.entity.channel.MessageChannel;
 import discord4j.rest.util.Color;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Removes the current guild from the internal database and kicks the bot
@@ -35,29 +33,26 @@ public class LeaveGuild extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        MessageChannel channel = CommandUtils.getMessageChannel(event);
-        if (!DiscordBot.removeGuild(context).block())
-            return channel.createEmbed(spec -> {
-                spec.setTitle(Localizations.lc("error"));
-                spec.setColor(Color.RED);
-                spec.addField(Localizations.lc("leaving-failed"),
-                        Localizations.lc("leaving-failed-try-again-later"), false);
-                CommandUtils.setSelfAuthor(event.getGuild(), spec);
-                spec.setTimestamp(Instant.now());
-            }).then();
-        channel.createEmbed(spec -> {
-            spec.setTitle(Localizations.lc("bye"));
-            spec.addField(Localizations.lc("bye-longer"),
-                    Localizations.lc("leaving-the-guild"), false);
-            spec.setColor(Color.SUBMARINE);
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).block();
-        return Objects.requireNonNull(event.getGuild().block()).leave();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .flatMap(valid -> DiscordBot.removeGuild(context))
+                .flatMap(removed -> {
+                    if (!removed) return CommandUtils.replySelfEmbed(event, spec -> {
+                        spec.setTitle(Localizations.lc("error"));
+                        spec.setColor(Color.RED);
+                        spec.addField(Localizations.lc("leaving-failed"),
+                                Localizations.lc("leaving-failed-try-again-later"), false);
+                        spec.setTimestamp(Instant.now());
+                    }).then();
+                    return CommandUtils.replySelfEmbed(event, spec -> {
+                        spec.setTitle(Localizations.lc("bye"));
+                        spec.addField(Localizations.lc("bye-longer"),
+                                Localizations.lc("leaving-the-guild"), false);
+                        spec.setColor(Color.SUBMARINE);
+                        spec.setTimestamp(Instant.now());
+                    }).then(DiscordBot.getEntities().getGuild(event).flatMap(discord4j.core.object.entity.Guild::leave));
+                });
     }
 
 }
@@ -6,6 +6,7 @@ import com.redcreator37.WhitelistBot.DataModels.Guild;
 import com.redcreator37.WhitelistBot.DiscordBot;
 import com.redcreator37.WhitelistBot.Localizations;
 import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Role;
 import discord4j.rest.util.Color;
 import reactor.core.publisher.Mono;
 
@@ -13,7 +14,6 @@ import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Sets the administrator role for this {@link Guild}
@@ -39,22 +39,24 @@ public class SetAdmin extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings({"BlockingMethodInNonBlockingContext", "OptionalGetWithoutIsPresent"})
+    @SuppressWarnings("OptionalGetWithoutIsPresent")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        // get the entered role or the highest role of the invoking member
-        String adminRole = args.size() > 1 ? args.get(1) : Objects.requireNonNull(event
-                .getMember().get().getHighestRole().block()).getName();
-        context.setAdminRole(adminRole);
-        return CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            spec.setTitle(Localizations.lc("admin-role-changed"));
-            spec.setColor(Color.CYAN);
-            spec.addField(MessageFormat.format(Localizations.lc("admin-role-now"), adminRole),
-                    MessageFormat.format(Localizations.lc("to-change-admin-run"),
-                            DiscordBot.cmdPrefix, this.getName()), false);
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).then();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                // get the entered role or the highest role of the invoking member
+                .flatMap(valid -> args.size() > 1 ? Mono.just(args.get(1)) : event.getMember().get()
+                        .getHighestRole().map(Role::getName))
+                .flatMap(adminRole -> {
+                    context.setAdminRole(adminRole);
+                    DiscordBot.markDirty(context);
+                    return CommandUtils.replySelfEmbed(event, spec -> {
+                        spec.setTitle(Localizations.lc("admin-role-changed"));
+                        spec.setColor(Color.CYAN);
+                        spec.addField(MessageFormat.format(Localizations.lc("admin-role-now"), adminRole),
+                                MessageFormat.format(Localizations.lc("to-change-admin-run"),
+                                        DiscordBot.cmdPrefix, this.getName()), false);
+                        spec.setTimestamp(Instant.now());
+                    });
+                }).then();
     }
 }
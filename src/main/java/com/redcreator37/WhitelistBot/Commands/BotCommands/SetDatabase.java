@@ -4,6 +4,7 @@ import com.redcreator37.WhitelistBot.Commands.BotCommand;
 import com.redcreator37.WhitelistBot.Commands.CommandUtils;
 import com.redcreator37.WhitelistBot.DataModels.Guild;
 import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
+import com.redcreator37.WhitelistBot.DiscordBot;
 import com.redcreator37.WhitelistBot.Localizations;
 import discord4j.core.event.domain.message.MessageCreateEvent;
 import discord4j.rest.util.Color;
@@ -12,7 +13,6 @@ import reactor.core.publisher.Mono;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Adds new / modifies existing external database connection data
@@ -42,27 +42,25 @@ public class SetDatabase extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        String password = args.size() < 5 ? "" : args.get(4);   // allow empty passwords
-        SharedDbProvider provider = new SharedDbProvider(context.getSnowflake(),
-                args.get(1), args.get(3), password, args.get(2));
-        context.setSharedDbProvider(provider);
-        CommandUtils.getMessageChannel(event).createEmbed(spec -> {
-            spec.setTitle(Localizations.lc("db-data-changed"));
-            spec.setColor(Color.CYAN);
-            spec.addField(Localizations.lc("server"), provider.getDbServer(), true);
-            spec.addField(Localizations.lc("db-name"), provider.getDbName(), true);
-            spec.addField(Localizations.lc("username"), provider.getUsername(), true);
-            spec.setDescription(Localizations.lc("connecting-to-db-shortly"));
-            CommandUtils.setSelfAuthor(event.getGuild(), spec);
-            spec.setTimestamp(Instant.now());
-        }).block();
-        CommandUtils.attemptConnectDb(Objects.requireNonNull(event.getMessage()
-                .getChannel().block()), Objects.requireNonNull(event.getGuild().block()));
-        // delete the message containing the credentials
-        return event.getMessage().delete().then();
+        return this.checkValidity(args, event, context).filter(valid -> valid).flatMap(valid -> {
+            String password = args.size() < 5 ? "" : args.get(4);   // allow empty passwords
+            SharedDbProvider provider = new SharedDbProvider(context.getSnowflake(),
+                    args.get(1), args.get(3), password, args.get(2));
+            context.setSharedDbProvider(provider);
+            DiscordBot.markDirty(context);
+            return CommandUtils.replySelfEmbed(event, spec -> {
+                spec.setTitle(Localizations.lc("db-data-changed"));
+                spec.setColor(Color.CYAN);
+                spec.addField(Localizations.lc("server"), provider.getDbServer(), true);
+                spec.addField(Localizations.lc("db-name"), provider.getDbName(), true);
+                spec.addField(Localizations.lc("username"), provider.getUsername(), true);
+                spec.setDescription(Localizations.lc("connecting-to-db-shortly"));
+                spec.setTimestamp(Instant.now());
+            }).then(CommandUtils.attemptConnectDb(event, context))
+                    // delete the message containing the credentials
+                    .then(event.getMessage().delete());
+        });
     }
 }
@@ -0,0 +1,73 @@
+package com.redcreator37.WhitelistBot.Commands.BotCommands;
+
+import com.redcreator37.WhitelistBot.Commands.AuditPages;
+import com.redcreator37.WhitelistBot.Commands.BotCommand;
+import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.DataModels.WhitelistedPlayer;
+import com.redcreator37.WhitelistBot.DiscordBot;
+import com.redcreator37.WhitelistBot.Localizations;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Shows the recorded whitelist changes of this guild in a single
+ * message, whose pages can be switched by reacting to it. The changes
+ * can be limited to a single player and to a range of days (in UTC).
+ */
+public class ShowHistory extends BotCommand {
+
+    public ShowHistory() {
+        super("history", Localizations.lc("shows-whitelist-history"),
+                new HashMap<String, Boolean>() {{
+                    put("playerId", false);
+                    put("fromDate", false);
+                    put("toDate", false);
+                }});
+    }
+
+    /**
+     * Runs the action for this command
+     *
+     * @param args    the command arguments entered, can be <code>null</code>
+     *                if none are required
+     * @param context the {@link Guild} context in which to run the
+     *                command. Can be <code>null</code> if no guild is
+     *                tied to the command's working.
+     * @param event   the {@link MessageCreateEvent} which occurred
+     *                when the message was sent
+     * @return an empty {@link Mono} object
+     */
+    @Override
+    public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
+        String player = null;
+        List<LocalDate> dates = new ArrayList<>(2);
+        for (String arg : args.subList(1, args.size())) {
+            if (arg.isEmpty()) continue;
+            try {
+                dates.add(LocalDate.parse(arg));
+            } catch (DateTimeParseException e) {
+                player = arg;
+            }
+        }
+        String identifier = player;
+        Instant from = dates.isEmpty() ? Instant.EPOCH : dates.get(0).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = dates.size() < 2 ? Instant.ofEpochMilli(Long.MAX_VALUE)
+                : dates.get(1).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .filterWhen(valid -> identifier == null ? Mono.just(true)
+                        : CommandUtils.invalidPlayerIdEmbed(identifier, event).map(invalid -> !invalid))
+                .flatMap(valid -> DiscordBot.getPaginator().open(event, new AuditPages(DiscordBot.getAuditLog(),
+                        context.getSnowflake(), identifier == null ? null
+                        : new WhitelistedPlayer(identifier).getIdentifier(), from, to)));
+    }
+
+}
@@ -2,17 +2,18 @@ package com.redcreator37.WhitelistBot.Commands.BotCommands;
 
 import com.redcreator37.WhitelistBot.Commands.BotCommand;
 import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
 import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
 import com.redcreator37.WhitelistBot.Localizations;
 import discord4j.core.event.domain.message.MessageCreateEvent;
-import discord4j.core.object.entity.channel.MessageChannel;
 import discord4j.rest.util.Color;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
 
 import static com.redcreator37.WhitelistBot.Localizations.lc;
 
@@ -41,25 +42,27 @@ public class WhitelistPlayer extends BotCommand {
      *                when the message was sent
      * @return an empty {@link Mono} object
      */
-    @SuppressWarnings("BlockingMethodInNonBlockingContext")
     @Override
     public Mono<Void> execute(List<String> args, Guild context, MessageCreateEvent event) {
-        if (!this.checkValidity(args, event, context).block()) return Mono.empty();
-        if (CommandUtils.checkDbNotPresent(event, context)) return Mono.empty();
-        MessageChannel channel = CommandUtils.getMessageChannel(event);
-        return channel.createEmbed(spec -> event.getGuild().subscribe(guild -> {
-            if (CommandUtils.invalidPlayerIdEmbed(args.get(1), channel)) return;
-            Optional<String> fail = context.whitelistPlayer(args.get(1));
-            if (!fail.isPresent()) {
-                spec.setColor(Color.GREEN);
-                spec.setTitle(lc("player-whitelisted"));
-                spec.addField(lc("player-id"), args.get(1), true);
-            } else {
-                spec.setColor(Color.RED);
-                spec.setTitle(lc("whitelist-failed"));
-                spec.addField(lc("error"), fail.get(), true);
-            }
-            spec.setTimestamp(Instant.now());
-        })).then();
+        return this.checkValidity(args, event, context).filter(valid -> valid)
+                .filterWhen(valid -> CommandUtils.checkDbNotPresent(event, context).map(missing -> !missing))
+                .filterWhen(valid -> CommandUtils.invalidPlayerIdEmbed(args.get(1), event).map(invalid -> !invalid))
+                .flatMap(valid -> DatabaseScheduler.call(() -> context.whitelistPlayer(args.get(1))))
+                .doOnNext(fail -> {
+                    if (!fail.isPresent()) CommandUtils.recordAudit(event, context, AuditEntry.Action.WHITELIST,
+                            Collections.singletonList(args.get(1)));
+                })
+                .flatMap(fail -> CommandUtils.replyEmbed(event, spec -> {
+                    if (!fail.isPresent()) {
+                        spec.setColor(Color.GREEN);
+                        spec.setTitle(lc("player-whitelisted"));
+                        spec.addField(lc("player-id"), args.get(1), true);
+                    } else {
+                        spec.setColor(Color.RED);
+                        spec.setTitle(lc("whitelist-failed"));
+                        spec.addField(lc("error"), fail.get(), true);
+                    }
+                    spec.setTimestamp(Instant.now());
+                })).then();
     }
 }
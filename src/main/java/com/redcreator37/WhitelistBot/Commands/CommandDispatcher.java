@@ -0,0 +1,163 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.User;
+
+import java.util.Map;
+
+/**
+ * Resolves incoming messages into the matching {@link Command}.
+ * <p>
+ * Commands are stored in a table bucketed by the length of their
+ * invocation word, so a lookup only ever compares the entered word
+ * against the (usually single) command of the same length. Messages
+ * which don't start with the command prefix are rejected before any
+ * other work is done.
+ */
+public class CommandDispatcher {
+
+    /**
+     * The prefix to look for when parsing messages into commands
+     */
+    private final char prefix;
+
+    /**
+     * The invocation words, indexed by their length
+     */
+    private final String[][] names;
+
+    /**
+     * The commands matching the words in {@link #names}
+     */
+    private final Command[][] targets;
+
+    /**
+     * Constructs a new CommandDispatcher instance
+     *
+     * @param prefix   the prefix to look for when parsing messages
+     * @param commands the {@link Map} of all registered commands,
+     *                 keyed by their invocation words
+     */
+    public CommandDispatcher(char prefix, Map<String, Command> commands) {
+        this.prefix = prefix;
+        int maxLength = 0;
+        for (String name : commands.keySet())
+            maxLength = Math.max(maxLength, name.length());
+        names = new String[maxLength + 1][];
+        targets = new Command[maxLength + 1][];
+        commands.forEach((name, command) -> {
+            int len = name.length();
+            int slot = names[len] == null ? 0 : names[len].length;
+            String[] bucketNames = new String[slot + 1];
+            Command[] bucketTargets = new Command[slot + 1];
+            if (slot > 0) {
+                System.arraycopy(names[len], 0, bucketNames, 0, slot);
+                System.arraycopy(targets[len], 0, bucketTargets, 0, slot);
+            }
+            bucketNames[slot] = name;
+            bucketTargets[slot] = command;
+            names[len] = bucketNames;
+            targets[len] = bucketTargets;
+        });
+    }
+
+    /**
+     * Returns the command invoked by this message content. Only exact
+     * matches of the invocation word are accepted, so <code>-listfoo</code>
+     * won't run <code>list</code>.
+     *
+     * @param content the content of the message
+     * @return the matching {@link Command} or <code>null</code> if the
+     * content doesn't invoke any command
+     */
+    public Command resolve(String content) {
+        int slot = find(content);
+        return slot < 0 ? null : targets[slot & 0xFFFF][slot >>> 16];
+    }
+
+    /**
+     * Returns the name of the command invoked by this message content
+     *
+     * @param content the content of the message
+     * @return the invocation word of the matching command or
+     * <code>null</code> if the content doesn't invoke any command
+     */
+    public String resolveName(String content) {
+        int slot = find(content);
+        return slot < 0 ? null : names[slot & 0xFFFF][slot >>> 16];
+    }
+
+    /**
+     * Finds the command invoked by this message content in the table
+     *
+     * @param content the content of the message
+     * @return the position of the command in its bucket in the upper
+     * 16 bits and the length of its word in the lower ones, or -1 if
+     * the content doesn't invoke any command
+     */
+    private int find(String content) {
+        int length = content == null ? 0 : content.length();
+        if (length < 2 || content.charAt(0) != prefix) return -1;
+        int end = 1;
+        while (end < length && !Character.isWhitespace(content.charAt(end))) end++;
+        int wordLength = end - 1;
+        if (wordLength >= names.length || names[wordLength] == null) return -1;
+        String[] bucket = names[wordLength];
+        for (int i = 0; i < bucket.length; i++)
+            if (content.regionMatches(1, bucket[i], 0, wordLength))
+                return i << 16 | wordLength;
+        return -1;
+    }
+
+    /**
+     * Returns the command invoked by the message of this
+     * {@link MessageCreateEvent}. Messages sent outside of guilds or
+     * by other bots are ignored.
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @return the matching {@link Command} or <code>null</code> if the
+     * message doesn't invoke any command
+     */
+    public Command resolve(MessageCreateEvent event) {
+        int slot = find(event);
+        return slot < 0 ? null : targets[slot & 0xFFFF][slot >>> 16];
+    }
+
+    /**
+     * Returns the name of the command invoked by the message of this
+     * {@link MessageCreateEvent}. Messages sent outside of guilds or
+     * by other bots are ignored.
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @return the invocation word of the matching command or
+     * <code>null</code> if the message doesn't invoke any command
+     */
+    public String resolveName(MessageCreateEvent event) {
+        int slot = find(event);
+        return slot < 0 ? null : names[slot & 0xFFFF][slot >>> 16];
+    }
+
+    /**
+     * Finds the command invoked by the message of this
+     * {@link MessageCreateEvent} in the table
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @return the position of the command as returned by
+     * {@link #find(String)}, or -1 if the message doesn't invoke any
+     * command
+     */
+    private int find(MessageCreateEvent event) {
+        if (!event.getGuildId().isPresent()) return -1;
+        Message message = event.getMessage();
+        int slot = find(message.getContent());
+        // the author check comes last as almost all messages fail the prefix check
+        if (slot < 0 || message.getAuthor().map(User::isBot).orElse(true))
+            return -1;
+        return slot;
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
+import com.redcreator37.WhitelistBot.Settings;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.User;
+import discord4j.rest.util.Color;
+import reactor.core.publisher.Mono;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Limits how often the commands can be used, before any permission
+ * checks or database calls are made.
+ * <p>
+ * Each command use takes a token from the bucket of its user, of its
+ * guild and of the command within the guild. A use is rejected if any
+ * of them is empty, and the user is told so at most once until the
+ * limit that rejected it allows another use. The limits are read from the settings
+ * (ex. <code>throttle.user.burst</code> and
+ * <code>throttle.user.per-minute</code>), the command limits can be set
+ * for each command (ex. <code>throttle.command.setdatabase.burst</code>),
+ * and a limit of <code>0</code> per minute disables the scope.
+ */
+public class CommandThrottle {
+
+    /**
+     * The buckets of the users or <code>null</code> if disabled
+     */
+    private final TokenBuckets users = limit("throttle.user", 5, 12);
+
+    /**
+     * The buckets of the guilds or <code>null</code> if disabled
+     */
+    private final TokenBuckets guilds = limit("throttle.guild", 20, 120);
+
+    /**
+     * The buckets of each command within the guilds, keyed by the
+     * command names
+     */
+    private final Map<String, TokenBuckets> commands = new ConcurrentHashMap<>();
+
+    /**
+     * The times until which the users have already been told about
+     * their rejected commands, keyed by the users
+     */
+    private final Map<Long, Long> notices = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the limit with this settings prefix
+     *
+     * @param prefix           the prefix of the settings
+     * @param defaultBurst     the burst size to use if none is set
+     * @param defaultPerMinute the refill rate to use if none is set
+     * @return the {@link TokenBuckets} or <code>null</code> if the
+     * limit is disabled
+     */
+    private static TokenBuckets limit(String prefix, int defaultBurst, int defaultPerMinute) {
+        int perMinute = Settings.getInt(prefix + ".per-minute", defaultPerMinute);
+        if (perMinute <= 0) return null;
+        return new TokenBuckets(Math.max(1, Settings.getInt(prefix + ".burst", defaultBurst)), perMinute);
+    }
+
+    /**
+     * Registers the limit of this command
+     *
+     * @param name the name of the command
+     */
+    public void register(String name) {
+        int burst = Settings.getInt("throttle.command.burst", 10);
+        int perMinute = Settings.getInt("throttle.command.per-minute", 30);
+        TokenBuckets buckets = limit("throttle.command." + name, burst, perMinute);
+        if (buckets != null) commands.put(name, buckets);
+    }
+
+    /**
+     * Checks whether this use of the command is within the limits and
+     * tells the user if it isn't
+     *
+     * @param command the name of the used command
+     * @param event   the {@link MessageCreateEvent} of the command
+     * @return <code>true</code> if the command may run
+     */
+    public Mono<Boolean> check(String command, MessageCreateEvent event) {
+        long userId = event.getMessage().getAuthor().map(User::getId).map(id -> id.asLong()).orElse(0L);
+        long guildId = event.getGuildId().map(id -> id.asLong()).orElse(0L);
+        long wait = acquire(users, userId, "user");
+        if (wait == 0) {
+            wait = acquire(guilds, guildId, "guild");
+            if (wait == 0) {
+                wait = acquire(commands.get(command), guildId, "command");
+                if (wait != 0 && guilds != null) guilds.release(guildId);
+            }
+            if (wait != 0 && users != null) users.release(userId);
+        }
+        if (wait == 0) return Mono.just(true);
+        if (!shouldNotify(userId, wait)) return Mono.just(false);
+        long seconds = (wait + 999) / 1000;
+        return CommandUtils.replyEmbed(event, "throttled:" + userId, spec -> {
+            spec.setTitle(lc("throttled"));
+            spec.setColor(Color.ORANGE);
+            spec.addField(lc("too-many-uses"), MessageFormat.format(lc("try-again-in"), seconds), false);
+            spec.setTimestamp(Instant.now());
+        }).onErrorResume(e -> Mono.empty()).thenReturn(false);
+    }
+
+    /**
+     * Checks whether the user should be told about this rejection,
+     * which is the case once for each cooldown window, regardless of
+     * which limit rejected the command
+     *
+     * @param userId the ID of the user
+     * @param wait   the number of milliseconds until the limit allows
+     *               another use
+     * @return <code>true</code> if the user should be told
+     */
+    private boolean shouldNotify(long userId, long wait) {
+        long now = System.currentTimeMillis();
+        Long until = notices.putIfAbsent(userId, now + wait);
+        return until == null || until <= now && notices.replace(userId, until, now + wait);
+    }
+
+    /**
+     * Takes a token from this bucket and counts the rejections
+     *
+     * @param buckets the {@link TokenBuckets} to take the token from or
+     *                <code>null</code> if the scope is disabled
+     * @param id      the ID of the bucket
+     * @param scope   the name of the scope, used as the metric label
+     * @return the result of {@link TokenBuckets#tryAcquire(long)}
+     */
+    private static long acquire(TokenBuckets buckets, long id, String scope) {
+        if (buckets == null) return 0;
+        long wait = buckets.tryAcquire(id);
+        if (wait != 0) Metrics.COMMANDS_THROTTLED.inc(scope);
+        return wait;
+    }
+
+    /**
+     * Removes the buckets which are full again and the notices which
+     * have run out
+     */
+    public void expire() {
+        long now = System.currentTimeMillis();
+        notices.values().removeIf(until -> until <= now);
+        if (users != null) users.expire();
+        if (guilds != null) guilds.expire();
+        commands.values().forEach(TokenBuckets::expire);
+    }
+
+}
@@ -1,10 +1,18 @@
 package com.redcreator37.WhitelistBot.Commands;
 
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import com.redcreator37.WhitelistBot.DataModels.BulkResult;
+import com.redcreator37.WhitelistBot.DataModels.PlayerIdentifier;
+import com.redcreator37.WhitelistBot.DataModels.WhitelistedPlayer;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
 import com.redcreator37.WhitelistBot.DiscordBot;
 import com.redcreator37.WhitelistBot.Localizations;
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
 import discord4j.core.event.domain.message.MessageCreateEvent;
 import discord4j.core.object.entity.Guild;
 import discord4j.core.object.entity.Member;
+import discord4j.core.object.entity.Message;
 import discord4j.core.object.entity.Role;
 import discord4j.core.object.entity.User;
 import discord4j.core.object.entity.channel.MessageChannel;
@@ -12,10 +20,15 @@ import discord4j.core.spec.EmbedCreateSpec;
 import discord4j.rest.util.Color;
 import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.time.Instant;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.redcreator37.WhitelistBot.Localizations.lc;
 
@@ -25,14 +38,102 @@ import static com.redcreator37.WhitelistBot.Localizations.lc;
 public class CommandUtils {
 
     /**
-     * Checks whether this SteamID is not in the correct format
+     * Checks whether this player identifier is not in any of the
+     * supported formats
      *
-     * @param id the SteamID to check
+     * @param id the identifier to check
      * @return <code>true</code> if the ID is invalid, <code>false</code>
      * otherwise
      */
     public static boolean checkIdInvalid(String id) {
-        return !Pattern.matches("^steam:[a-zA-Z0-9]+$", id);
+        return !PlayerIdentifier.isValid(id);
+    }
+
+    /**
+     * Splits the arguments of a bulk command into the entered player
+     * identifiers, which can be separated by whitespace or commas
+     *
+     * @param args the command arguments, including the command itself
+     * @return the {@link List} of entered identifiers
+     */
+    public static List<String> parsePlayerIds(List<String> args) {
+        List<String> ids = new ArrayList<>();
+        String[] tokens = String.join(" ", args).trim().split("[\\s,]+");
+        for (int i = 1; i < tokens.length; i++)   // skip the command itself
+            if (!tokens[i].isEmpty()) ids.add(tokens[i]);
+        return ids;
+    }
+
+    /**
+     * Records these whitelist changes, made by the author of the
+     * {@link MessageCreateEvent}, into the audit log
+     *
+     * @param event     the {@link MessageCreateEvent} of the command
+     *                  which made the changes
+     * @param guild     the {@link com.redcreator37.WhitelistBot.DataModels.Guild}
+     *                  whose whitelist was changed
+     * @param action    the kind of the changes
+     * @param playerIds the identifiers of the affected players
+     */
+    public static void recordAudit(MessageCreateEvent event, com.redcreator37.WhitelistBot.DataModels.Guild guild,
+                                   AuditEntry.Action action, Collection<String> playerIds) {
+        if (playerIds.isEmpty()) return;
+        Snowflake actor = event.getMessage().getAuthor().map(User::getId).orElse(Snowflake.of(0));
+        Instant now = Instant.now();
+        for (String id : playerIds)
+            DiscordBot.getAuditLog().record(new AuditEntry(0, guild.getSnowflake(), actor, action,
+                    new WhitelistedPlayer(id).getIdentifier(), now));
+    }
+
+    /**
+     * Joins these lines into a single embed field value, which is cut
+     * off when it exceeds Discord's field length limit
+     *
+     * @param lines the lines to join
+     * @return the field value
+     */
+    private static String joinFieldLines(List<String> lines) {
+        if (lines.isEmpty()) return "-";
+        StringBuilder b = new StringBuilder(1024);
+        for (int i = 0; i < lines.size(); i++) {
+            String more = MessageFormat.format(lc("and-more"), lines.size() - i);
+            if (b.length() + lines.get(i).length() + more.length() + 2 > 1024) {
+                b.append(more);
+                break;
+            }
+            b.append(lines.get(i)).append('\n');
+        }
+        return b.toString().trim();
+    }
+
+    /**
+     * Embeds the summary of a bulk whitelist operation into the channel
+     * of the {@link MessageCreateEvent}
+     *
+     * @param event          the {@link MessageCreateEvent} which occurred
+     *                       when the message was sent
+     * @param result         the {@link BulkResult} of the operation
+     * @param title          the title of the embed
+     * @param succeededLabel the label of the succeeded players' field
+     * @param unchangedLabel the label of the unchanged players' field
+     * @return the sent {@link Message}
+     */
+    public static Mono<Message> bulkResultEmbed(MessageCreateEvent event, BulkResult result, String title,
+                                                String succeededLabel, String unchangedLabel) {
+        List<String> failed = new ArrayList<>();
+        result.getFailed().forEach((id, reason) -> failed.add(id + " - " + reason));
+        return replyEmbed(event, spec -> {
+            spec.setTitle(title);
+            spec.setColor(failed.isEmpty() ? Color.GREEN : result.getSucceeded().isEmpty()
+                    ? Color.RED : Color.ORANGE);
+            spec.addField(MessageFormat.format(succeededLabel, result.getSucceeded().size()),
+                    joinFieldLines(result.getSucceeded()), false);
+            spec.addField(MessageFormat.format(unchangedLabel, result.getUnchanged().size()),
+                    joinFieldLines(result.getUnchanged()), false);
+            spec.addField(MessageFormat.format(lc("failed-count"), failed.size()),
+                    joinFieldLines(failed), false);
+            spec.setTimestamp(Instant.now());
+        });
     }
 
     /**
@@ -40,11 +141,11 @@ public class CommandUtils {
      *
      * @param member the {@link Member} which should have the role
      * @param name   the name of the role to look for
-     * @return the matching {@link Role} or <code>null</code> if the
+     * @return the matching {@link Role} or an empty {@link Mono} if the
      * member lacks it
      */
-    static Role findRole(Member member, String name) {
-        return member.getRoles().filter(role -> role.getName().equals(name)).blockFirst();
+    static Mono<Role> findRole(Member member, String name) {
+        return member.getRoles().filter(role -> role.getName().equals(name)).next();
     }
 
     /**
@@ -55,24 +156,109 @@ public class CommandUtils {
      *              the message was sent
      * @return the matching {@link MessageChannel}
      */
-    public static MessageChannel getMessageChannel(MessageCreateEvent event) {
-        MessageChannel channel = event.getMessage().getChannel().block();
-        assert channel != null;
-        return channel;
+    public static Mono<MessageChannel> getMessageChannel(MessageCreateEvent event) {
+        return DiscordBot.getEntities().getChannel(event.getMessage());
+    }
+
+    /**
+     * Returns the user of the currently running bot instance
+     *
+     * @param client the {@link GatewayDiscordClient} the bot is logged
+     *               in with
+     * @return the bot's {@link User}
+     */
+    public static Mono<User> getSelf(GatewayDiscordClient client) {
+        return DiscordBot.getEntities().getSelf(client);
     }
 
     /**
      * Sets the author data for this {@link EmbedCreateSpec} to the currently
      * running bot instance
      *
-     * @param guild the {@link Guild} context to operate on
-     * @param spec  the {@link EmbedCreateSpec} to set the data into
+     * @param bot  the {@link User} of the currently running bot
+     * @param spec the {@link EmbedCreateSpec} to set the data into
+     */
+    public static void setSelfAuthor(User bot, EmbedCreateSpec spec) {
+        spec.setAuthor(bot.getUsername(), null, bot.getAvatarUrl());
+    }
+
+    /**
+     * Embeds a reply into the channel in which the {@link MessageCreateEvent}
+     * has occurred
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param spec  the {@link EmbedCreateSpec} consumer building the embed
+     * @return the sent {@link Message}
+     */
+    public static Mono<Message> replyEmbed(MessageCreateEvent event, Consumer<EmbedCreateSpec> spec) {
+        return replyEmbed(event, null, spec);
+    }
+
+    /**
+     * Embeds a reply into the channel in which the {@link MessageCreateEvent}
+     * has occurred, merging it with the queued replies with the same key
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param key   the coalescing key or <code>null</code>
+     * @param spec  the {@link EmbedCreateSpec} consumer building the embed
+     * @return the sent {@link Message}
+     * @see MessageScheduler#send(MessageChannel, String, Consumer)
+     */
+    public static Mono<Message> replyEmbed(MessageCreateEvent event, String key, Consumer<EmbedCreateSpec> spec) {
+        return getMessageChannel(event).flatMap(channel -> DiscordBot.getMessages().send(channel, key, spec));
+    }
+
+    /**
+     * Sends a reply with this file attached into the channel in which
+     * the {@link MessageCreateEvent} has occurred
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param name  the name of the attached file
+     * @param file  the {@link InputStream} reading the file's contents
+     * @param spec  the {@link EmbedCreateSpec} consumer building the embed
+     * @return the sent {@link Message}
+     * @see MessageScheduler#sendMessage(MessageChannel, String, Consumer)
+     */
+    public static Mono<Message> replyFile(MessageCreateEvent event, String name, InputStream file,
+                                          Consumer<EmbedCreateSpec> spec) {
+        return getMessageChannel(event).flatMap(channel -> DiscordBot.getMessages().sendMessage(channel, null,
+                message -> message.addFile(name, file).setEmbed(spec)));
+    }
+
+    /**
+     * Embeds a reply authored by the currently running bot instance into
+     * the channel in which the {@link MessageCreateEvent} has occurred
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param spec  the {@link EmbedCreateSpec} consumer building the embed
+     * @return the sent {@link Message}
      */
-    public static void setSelfAuthor(Mono<Guild> guild, EmbedCreateSpec spec) {
-        guild.flatMap(g -> g.getClient().getSelf().flatMap(bot -> {
-            spec.setAuthor(bot.getUsername(), null, bot.getAvatarUrl());
-            return Mono.empty();
-        })).block();
+    public static Mono<Message> replySelfEmbed(MessageCreateEvent event, Consumer<EmbedCreateSpec> spec) {
+        return replySelfEmbed(event, null, spec);
+    }
+
+    /**
+     * Embeds a reply authored by the currently running bot instance into
+     * the channel in which the {@link MessageCreateEvent} has occurred,
+     * merging it with the queued replies with the same key
+     *
+     * @param event the {@link MessageCreateEvent} which occurred when
+     *              the message was sent
+     * @param key   the coalescing key or <code>null</code>
+     * @param spec  the {@link EmbedCreateSpec} consumer building the embed
+     * @return the sent {@link Message}
+     * @see MessageScheduler#send(MessageChannel, String, Consumer)
+     */
+    public static Mono<Message> replySelfEmbed(MessageCreateEvent event, String key, Consumer<EmbedCreateSpec> spec) {
+        return Mono.zip(getMessageChannel(event), getSelf(event.getClient()))
+                .flatMap(tuple -> DiscordBot.getMessages().send(tuple.getT1(), key, embed -> {
+                    spec.accept(embed);
+                    setSelfAuthor(tuple.getT2(), embed);
+                }));
     }
 
     /**
@@ -80,10 +266,12 @@ public class CommandUtils {
      * of the guild
      *
      * @param guild the {@link Guild} context to get the data from
+     * @return an empty {@link Mono} completing once the message is sent
      */
-    public static void sendWelcome(Guild guild) {
-        guild.getOwner().flatMap(User::getPrivateChannel)
-                .flatMap(channel -> channel.createEmbed(spec -> {
+    public static Mono<Void> sendWelcome(Guild guild) {
+        return guild.getOwner().flatMap(User::getPrivateChannel)
+                .zipWith(getSelf(guild.getClient()))
+                .flatMap(tuple -> DiscordBot.getMessages().send(tuple.getT1(), null, spec -> {
                     spec.setTitle(lc("hi-there"));
                     spec.setColor(Color.LIGHT_SEA_GREEN);
                     spec.addField(lc("finish-setup"), MessageFormat
@@ -91,61 +279,78 @@ public class CommandUtils {
                     spec.setFooter(MessageFormat.format(lc("received-message-owner"),
                             guild.getName()), null);
                     spec.setTimestamp(Instant.now());
-                    CommandUtils.setSelfAuthor(Mono.just(guild), spec);
-                })).block();
+                    setSelfAuthor(tuple.getT2(), spec);
+                }))
+                .onErrorResume(e -> Mono.empty())   // the owner may not accept private messages
+                .then();
+    }
+
+    /**
+     * Tells the user that the bot is too busy with the previous commands
+     * of this guild to accept another one
+     *
+     * @param event the {@link MessageCreateEvent} of the rejected command
+     * @return an empty {@link Mono} completing once the message is sent
+     */
+    public static Mono<Void> busyEmbed(MessageCreateEvent event) {
+        return replyEmbed(event, "busy", spec -> {
+            spec.setTitle(lc("busy"));
+            spec.setColor(Color.ORANGE);
+            spec.addField(lc("too-many-commands"), lc("try-again-shortly"), false);
+            spec.setTimestamp(Instant.now());
+        }).onErrorResume(e -> Mono.empty()).then();
     }
 
     /**
      * Checks if this player ID is invalid and embeds an error message
-     * into the passed {@link MessageChannel} if it is
+     * into the channel of the {@link MessageCreateEvent} if it is
      *
-     * @param id      the ID to check
-     * @param channel the {@link MessageChannel} where the message about
-     *                an invalid ID will be embedded
+     * @param id    the ID to check
+     * @param event the {@link MessageCreateEvent} in whose channel the
+     *              message about an invalid ID will be embedded
      * @return <code>true</code> if the ID is invalid, <code>false</code>
      * otherwise
      */
-    public static boolean invalidPlayerIdEmbed(String id, MessageChannel channel) {
-        if (!checkIdInvalid(id)) return false;
-        channel.createEmbed(spec -> {
+    public static Mono<Boolean> invalidPlayerIdEmbed(String id, MessageCreateEvent event) {
+        if (!checkIdInvalid(id)) return Mono.just(false);
+        return replyEmbed(event, "invalid-id:" + id, spec -> {
             spec.setTitle(lc("invalid-id"));
             spec.setColor(Color.ORANGE);
             spec.addField(lc("entered-id"), id, true);
             spec.setTimestamp(Instant.now());
-        }).block();
-        return true;
+        }).thenReturn(true);
     }
 
     /**
      * Attempts to connect to the database, specified in this
      * {@link com.redcreator37.WhitelistBot.DataModels.Guild} and embed
-     * the status into the {@link MessageChannel}
-     *
-     * @param channel the {@link MessageChannel} to embed the data into
-     * @param guild   the {@link Guild} to embed the status into
-     */
-    public static void attemptConnectDb(MessageChannel channel, Guild guild) {
-        try {
-            DiscordBot.guilds.get(guild.getId()).connectSharedDb();
-            channel.createEmbed(spec -> {
-                spec.setTitle(Localizations.lc("connected-to-db"));
-                spec.setColor(Color.GREEN);
-                spec.addField(Localizations.lc("db-connect-established"),
-                        Localizations.lc("you-can-now-perform-db-actions"), false);
-                setSelfAuthor(Mono.just(guild), spec);
-                spec.setTimestamp(Instant.now());
-            }).block();
-        } catch (SQLException e) {
-            channel.createEmbed(spec -> {
-                spec.setTitle(Localizations.lc("db-connect-failed"));
-                spec.setColor(Color.RED);
-                spec.addField(Localizations.lc("db-connect-could-not-be-established"),
-                        e.getMessage(), false);
-                spec.setDescription(Localizations.lc("check-connect-data"));
-                setSelfAuthor(Mono.just(guild), spec);
-                spec.setTimestamp(Instant.now());
-            }).block();
-        }
+     * the status into the channel of the {@link MessageCreateEvent}
+     *
+     * @param event the {@link MessageCreateEvent} in whose channel the
+     *              status will be embedded
+     * @param guild the {@link com.redcreator37.WhitelistBot.DataModels.Guild}
+     *              to connect the database for
+     * @return an empty {@link Mono} completing once the status is sent
+     */
+    public static Mono<Void> attemptConnectDb(MessageCreateEvent event, com.redcreator37.WhitelistBot.DataModels.Guild guild) {
+        return DatabaseScheduler.run(guild::connectSharedDb)
+                .thenReturn(Optional.<String>empty())
+                .onErrorResume(SQLException.class, e -> Mono.just(Optional.of(e.getMessage())))
+                .flatMap(fail -> replySelfEmbed(event, spec -> {
+                    if (!fail.isPresent()) {
+                        spec.setTitle(Localizations.lc("connected-to-db"));
+                        spec.setColor(Color.GREEN);
+                        spec.addField(Localizations.lc("db-connect-established"),
+                                Localizations.lc("you-can-now-perform-db-actions"), false);
+                    } else {
+                        spec.setTitle(Localizations.lc("db-connect-failed"));
+                        spec.setColor(Color.RED);
+                        spec.addField(Localizations.lc("db-connect-could-not-be-established"),
+                                fail.get(), false);
+                        spec.setDescription(Localizations.lc("check-connect-data"));
+                    }
+                    spec.setTimestamp(Instant.now());
+                })).then();
     }
 
     /**
@@ -159,17 +364,15 @@ public class CommandUtils {
      * @return <code>true</code> if there's <strong>no</strong> database
      * data associated, <code>false</code> otherwise
      */
-    public static boolean checkDbNotPresent(MessageCreateEvent event, com.redcreator37.WhitelistBot.DataModels.Guild guild) {
-        if (guild.getSharedDbProvider() != null) return false;
-        getMessageChannel(event).createEmbed(spec -> {
+    public static Mono<Boolean> checkDbNotPresent(MessageCreateEvent event, com.redcreator37.WhitelistBot.DataModels.Guild guild) {
+        if (guild.getSharedDbProvider() != null) return Mono.just(false);
+        return replySelfEmbed(event, spec -> {
             spec.setTitle(Localizations.lc("no-db-yet"));
             spec.setColor(Color.RED);
             spec.addField(Localizations.lc("no-db-connected"), MessageFormat
                     .format(Localizations.lc("use-to-connect-db"), DiscordBot.cmdPrefix), false);
-            setSelfAuthor(event.getGuild(), spec);
             spec.setTimestamp(Instant.now());
-        }).block();
-        return true;
+        }).thenReturn(true);
     }
 
 }
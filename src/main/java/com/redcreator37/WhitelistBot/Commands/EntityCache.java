@@ -0,0 +1,178 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.UserUpdateEvent;
+import discord4j.core.event.domain.channel.TextChannelDeleteEvent;
+import discord4j.core.event.domain.guild.GuildCreateEvent;
+import discord4j.core.event.domain.guild.GuildDeleteEvent;
+import discord4j.core.event.domain.guild.GuildUpdateEvent;
+import discord4j.core.event.domain.lifecycle.ReadyEvent;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Guild;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.User;
+import discord4j.core.object.entity.channel.MessageChannel;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the Discord entities which are resolved for nearly every
+ * command: the bot's own user, the recently used channels and the
+ * guilds. The entries are replaced or dropped from the gateway events,
+ * so they never have to expire.
+ */
+public class EntityCache {
+
+    /**
+     * The user of the currently running bot instance, or
+     * <code>null</code> before it's known
+     */
+    private volatile User self = null;
+
+    /**
+     * The recently used message channels, keyed by the channel IDs in
+     * the least recently used order
+     */
+    private final Map<Long, MessageChannel> channels;
+
+    /**
+     * The guilds the bot is in, keyed by the guild IDs
+     */
+    private final Map<Long, Guild> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * The number of lookups served from this cache
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of lookups which had to be resolved from Discord
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a new EntityCache instance
+     *
+     * @param maxChannels the maximum number of channels to keep
+     */
+    public EntityCache(int maxChannels) {
+        this.channels = new LinkedHashMap<Long, MessageChannel>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MessageChannel> eldest) {
+                return size() > maxChannels;
+            }
+        };
+    }
+
+    /**
+     * Hooks up the gateway event handlers which keep this cache current
+     *
+     * @param client the {@link GatewayDiscordClient} to listen on
+     */
+    public void subscribe(GatewayDiscordClient client) {
+        client.getEventDispatcher().on(ReadyEvent.class)
+                .subscribe(e -> self = e.getSelf());
+        client.getEventDispatcher().on(UserUpdateEvent.class).subscribe(e -> {
+            User cached = self;
+            if (cached != null && cached.getId().equals(e.getCurrent().getId()))
+                self = e.getCurrent();
+        });
+        client.getEventDispatcher().on(GuildCreateEvent.class)
+                .subscribe(e -> guilds.put(e.getGuild().getId().asLong(), e.getGuild()));
+        client.getEventDispatcher().on(GuildUpdateEvent.class)
+                .subscribe(e -> guilds.put(e.getCurrent().getId().asLong(), e.getCurrent()));
+        client.getEventDispatcher().on(GuildDeleteEvent.class)
+                .subscribe(e -> guilds.remove(e.getGuildId().asLong()));
+        client.getEventDispatcher().on(TextChannelDeleteEvent.class).subscribe(e -> {
+            synchronized (channels) {
+                channels.remove(e.getChannel().getId().asLong());
+            }
+        });
+    }
+
+    /**
+     * Returns the user of the currently running bot instance
+     *
+     * @param client the {@link GatewayDiscordClient} to resolve the
+     *               user with if it isn't cached yet
+     * @return the bot's {@link User}
+     */
+    public Mono<User> getSelf(GatewayDiscordClient client) {
+        User cached = self;
+        if (cached != null) {
+            hits.increment();
+            return Mono.just(cached);
+        }
+        misses.increment();
+        return client.getSelf().doOnNext(user -> self = user);
+    }
+
+    /**
+     * Returns the channel this message was sent in
+     *
+     * @param message the {@link Message} to get the channel for
+     * @return the matching {@link MessageChannel}
+     */
+    public Mono<MessageChannel> getChannel(Message message) {
+        long id = message.getChannelId().asLong();
+        MessageChannel cached;
+        synchronized (channels) {
+            cached = channels.get(id);
+        }
+        if (cached != null) {
+            hits.increment();
+            return Mono.just(cached);
+        }
+        misses.increment();
+        return message.getChannel().doOnNext(channel -> {
+            synchronized (channels) {
+                channels.put(id, channel);
+            }
+        });
+    }
+
+    /**
+     * Returns the guild in which this {@link MessageCreateEvent} has
+     * occurred
+     *
+     * @param event the {@link MessageCreateEvent} to get the guild for
+     * @return the matching {@link Guild} or an empty {@link Mono} if
+     * the message wasn't sent in a guild
+     */
+    public Mono<Guild> getGuild(MessageCreateEvent event) {
+        if (!event.getGuildId().isPresent()) return Mono.empty();
+        Snowflake id = event.getGuildId().get();
+        Guild cached = guilds.get(id.asLong());
+        if (cached != null) {
+            hits.increment();
+            return Mono.just(cached);
+        }
+        misses.increment();
+        return event.getGuild().doOnNext(guild -> guilds.put(id.asLong(), guild));
+    }
+
+    /**
+     * Returns the number of lookups served from this cache
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which had to be resolved from
+     * Discord
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.common.util.Snowflake;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the commands of each guild one after another, in the order in
+ * which they were submitted, while the commands of different guilds
+ * run in parallel.
+ * <p>
+ * Each guild's lane holds a limited number of waiting commands. Commands
+ * submitted to a full lane are rejected instead of waiting, so a flood
+ * of commands can't make the bot fall behind indefinitely.
+ */
+public class GuildLanes {
+
+    /**
+     * A command waiting in a lane, along with the subscriber waiting for
+     * its completion
+     */
+    private static final class Task {
+
+        private final Mono<Void> work;
+
+        private final MonoSink<Void> sink;
+
+        private Task(Mono<Void> work, MonoSink<Void> sink) {
+            this.work = work;
+            this.sink = sink;
+        }
+
+    }
+
+    /**
+     * The ordered queue of a single guild's commands
+     */
+    private final class Lane {
+
+        private final long guildId;
+
+        private final Queue<Task> waiting = new ArrayDeque<>();
+
+        /**
+         * Whether a command of this lane is currently running
+         */
+        private boolean running = false;
+
+        /**
+         * Whether this lane was removed from the map after going idle,
+         * in which case new commands must go into a new lane
+         */
+        private boolean retired = false;
+
+        private Lane(long guildId) {
+            this.guildId = guildId;
+        }
+
+        /**
+         * Adds this task to the lane and starts it if the lane is idle
+         *
+         * @param task the {@link Task} to add
+         * @return <code>false</code> if the lane was retired and the task
+         * wasn't added
+         */
+        private boolean offer(Task task) {
+            synchronized (this) {
+                if (retired) return false;
+                if (running) {
+                    if (waiting.size() >= capacity) {
+                        task.sink.error(new RejectedExecutionException());
+                        return true;
+                    }
+                    waiting.add(task);
+                    return true;
+                }
+                running = true;
+            }
+            start(task);
+            return true;
+        }
+
+        private void start(Task task) {
+            task.work.doFinally(signal -> next())
+                    .subscribe(null, task.sink::error, task.sink::success);
+        }
+
+        /**
+         * Starts the next waiting task or retires the lane if there are
+         * none left
+         */
+        private void next() {
+            Task task;
+            synchronized (this) {
+                task = waiting.poll();
+                if (task == null) {
+                    running = false;
+                    retired = true;
+                    lanes.remove(guildId, this);
+                    return;
+                }
+            }
+            start(task);
+        }
+
+    }
+
+    /**
+     * The active lanes, keyed by the guild IDs. Idle lanes are removed,
+     * so only the guilds with running commands take up memory.
+     */
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of commands waiting in each lane
+     */
+    private final int capacity;
+
+    /**
+     * Constructs a new GuildLanes instance
+     *
+     * @param capacity the maximum number of commands waiting in each
+     *                 guild's lane, excluding the running one
+     */
+    public GuildLanes(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues this work in the lane of this guild
+     *
+     * @param guildId the snowflake of the guild
+     * @param work    the work to run
+     * @return a {@link Mono} completing once the work is done, or
+     * failing with a {@link RejectedExecutionException} if the guild's
+     * lane is full
+     */
+    public Mono<Void> submit(Snowflake guildId, Mono<Void> work) {
+        return Mono.create(sink -> {
+            Task task = new Task(work, sink);
+            Lane lane;
+            do lane = lanes.computeIfAbsent(guildId.asLong(), id -> new Lane(id));
+            while (!lane.offer(task));  // the lane was retired just now
+        });
+    }
+
+}
@@ -0,0 +1,322 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.channel.MessageChannel;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.core.spec.MessageCreateSpec;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends the bot's messages through a queue per channel, which stays
+ * within Discord's per-channel rate limit instead of relying on the
+ * retries after a limit is hit.
+ * <p>
+ * Each channel has a token bucket allowing a burst of messages, which
+ * refills evenly over the limit's period. The messages of a channel are
+ * sent one at a time in the order in which they were queued. A message
+ * can be given a coalescing key, in which case it waits a short while
+ * before it's sent, and any message with the same key queued in the
+ * meantime replaces it, so that only one of them is sent. The channel's
+ * queue holds a limited number of messages, and the producers wait for
+ * their messages to be sent.
+ */
+public class MessageScheduler {
+
+    /**
+     * A message waiting to be sent, along with the subscribers waiting
+     * for it
+     */
+    private static final class Pending {
+
+        private final String key;
+
+        /**
+         * Builds the message, replaced by the latest message with the
+         * same key
+         */
+        private Consumer<MessageCreateSpec> spec;
+
+        private final List<MonoSink<Message>> sinks = new ArrayList<>(1);
+
+        /**
+         * The time when the message was queued, as returned by
+         * {@link System#nanoTime()}
+         */
+        private final long queuedAt = System.nanoTime();
+
+        private Pending(String key, Consumer<MessageCreateSpec> spec, MonoSink<Message> sink) {
+            this.key = key;
+            this.spec = spec;
+            sinks.add(sink);
+        }
+
+    }
+
+    /**
+     * The queue and the rate limit bucket of a single channel
+     */
+    private final class ChannelQueue {
+
+        private final long channelId;
+
+        private final Deque<Pending> waiting = new ArrayDeque<>();
+
+        /**
+         * The channel to send the messages into
+         */
+        private MessageChannel channel;
+
+        /**
+         * The number of messages which can be sent right away
+         */
+        private double tokens = burst;
+
+        /**
+         * The time when the tokens were last refilled, as returned by
+         * {@link System#nanoTime()}
+         */
+        private long refilledAt = System.nanoTime();
+
+        /**
+         * Whether a message of this channel is currently being sent
+         */
+        private boolean sending = false;
+
+        /**
+         * Whether a delayed drain is already scheduled
+         */
+        private boolean scheduled = false;
+
+        /**
+         * Whether this queue was removed from the map after going idle
+         * with a full bucket, in which case new messages must go into a
+         * new queue
+         */
+        private boolean retired = false;
+
+        private ChannelQueue(long channelId) {
+            this.channelId = channelId;
+        }
+
+        /**
+         * Adds this message to the queue or merges it into a queued
+         * message with the same key
+         *
+         * @param channel the channel to send the message into
+         * @param key     the coalescing key or <code>null</code>
+         * @param spec    builds the message
+         * @param sink    the subscriber waiting for the message
+         * @return <code>false</code> if the queue was retired and the
+         * message wasn't added
+         */
+        private boolean offer(MessageChannel channel, String key, Consumer<MessageCreateSpec> spec,
+                              MonoSink<Message> sink) {
+            synchronized (this) {
+                if (retired) return false;
+                this.channel = channel;
+                if (key != null) for (Pending pending : waiting)
+                    if (key.equals(pending.key)) {
+                        pending.spec = spec;
+                        pending.sinks.add(sink);
+                        Metrics.OUTBOUND_COALESCED.inc();
+                        return true;
+                    }
+                if (waiting.size() >= capacity) {
+                    Metrics.OUTBOUND_REJECTED.inc();
+                    sink.error(new RejectedExecutionException());
+                    return true;
+                }
+                waiting.add(new Pending(key, spec, sink));
+                queued.incrementAndGet();
+            }
+            drain();
+            return true;
+        }
+
+        /**
+         * Sends the next message if the rate limit allows it, or
+         * schedules another attempt for when it will
+         */
+        private void drain() {
+            Pending next;
+            MessageChannel target;
+            synchronized (this) {
+                if (sending) return;
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilledAt) * (double) burst / period);
+                refilledAt = now;
+                long wait;
+                if (waiting.isEmpty()) {
+                    // the bucket is kept until it's full, so a new queue can't skip the limit
+                    if (tokens >= burst) {
+                        retired = true;
+                        queues.remove(channelId, this);
+                        return;
+                    }
+                    wait = (long) Math.ceil((burst - tokens) * period / burst);
+                } else {
+                    Pending head = waiting.peek();
+                    long linger = head.key == null ? 0 : head.queuedAt + coalesceWindow - now;
+                    long refill = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * period / burst);
+                    wait = Math.max(linger, refill);
+                }
+                if (wait > 0) {
+                    if (!scheduled) {
+                        scheduled = true;
+                        Mono.delay(Duration.ofNanos(Math.max(1, wait))).subscribe(tick -> {
+                            synchronized (this) {
+                                scheduled = false;
+                            }
+                            drain();
+                        });
+                    }
+                    return;
+                }
+                tokens--;
+                sending = true;
+                next = waiting.poll();
+                target = channel;
+                queued.decrementAndGet();
+            }
+            send(target, next);
+        }
+
+        /**
+         * Sends this message and starts the next one once it's done
+         *
+         * @param target  the channel to send the message into
+         * @param pending the message to send
+         */
+        private void send(MessageChannel target, Pending pending) {
+            long start = System.nanoTime();
+            Metrics.OUTBOUND.observe("queue", start - pending.queuedAt);
+            target.createMessage(pending.spec)
+                    .doFinally(signal -> {
+                        Metrics.OUTBOUND.observe("send", System.nanoTime() - start);
+                        synchronized (this) {
+                            sending = false;
+                        }
+                        drain();
+                    })
+                    .subscribe(message -> pending.sinks.forEach(sink -> sink.success(message)),
+                            e -> pending.sinks.forEach(sink -> sink.error(e)),
+                            () -> pending.sinks.forEach(MonoSink::success));
+        }
+
+    }
+
+    /**
+     * The active queues, keyed by the channel IDs. Idle queues are
+     * removed once their buckets have refilled, so only the channels
+     * with recent messages take up memory.
+     */
+    private final Map<Long, ChannelQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * The number of messages waiting in all queues
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * The maximum number of messages sent in a burst
+     */
+    private final int burst;
+
+    /**
+     * The period over which the bucket refills completely, in
+     * nanoseconds
+     */
+    private final long period;
+
+    /**
+     * How long a message with a coalescing key waits for others with
+     * the same key, in nanoseconds
+     */
+    private final long coalesceWindow;
+
+    /**
+     * The maximum number of messages waiting in each queue
+     */
+    private final int capacity;
+
+    /**
+     * Constructs a new MessageScheduler instance
+     *
+     * @param burst          the maximum number of messages sent into a
+     *                       channel in a burst
+     * @param period         the period over which the channel's limit
+     *                       refills completely
+     * @param coalesceWindow how long a message with a coalescing key
+     *                       waits for others with the same key
+     * @param capacity       the maximum number of messages waiting in
+     *                       each channel's queue
+     */
+    public MessageScheduler(int burst, Duration period, Duration coalesceWindow, int capacity) {
+        this.burst = burst;
+        this.period = period.toNanos();
+        this.coalesceWindow = coalesceWindow.toNanos();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues this embed to be sent into the channel
+     *
+     * @param channel the {@link MessageChannel} to send the embed into
+     * @param key     the coalescing key or <code>null</code> if the
+     *                message must not be merged with others. Messages
+     *                with the same key must be interchangeable, as only
+     *                the last one queued is sent.
+     * @param spec    the {@link EmbedCreateSpec} consumer building the
+     *                embed
+     * @return the sent {@link Message}, which is shared by all merged
+     * messages, or a {@link RejectedExecutionException} if the channel's
+     * queue is full
+     */
+    public Mono<Message> send(MessageChannel channel, String key, Consumer<EmbedCreateSpec> spec) {
+        return sendMessage(channel, key, message -> message.setEmbed(spec));
+    }
+
+    /**
+     * Queues this message to be sent into the channel, ex. a message
+     * with file attachments
+     *
+     * @param channel the {@link MessageChannel} to send the message into
+     * @param key     the coalescing key or <code>null</code> if the
+     *                message must not be merged with others
+     * @param spec    the {@link MessageCreateSpec} consumer building the
+     *                message
+     * @return the sent {@link Message}, or a
+     * {@link RejectedExecutionException} if the channel's queue is full
+     * @see #send(MessageChannel, String, Consumer)
+     */
+    public Mono<Message> sendMessage(MessageChannel channel, String key, Consumer<MessageCreateSpec> spec) {
+        return Mono.create(sink -> {
+            ChannelQueue queue;
+            do queue = queues.computeIfAbsent(channel.getId().asLong(), id -> new ChannelQueue(id));
+            while (!queue.offer(channel, key, spec, sink));     // the queue was retired just now
+        });
+    }
+
+    /**
+     * Returns the number of messages waiting in all queues
+     *
+     * @return the number of queued messages
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+}
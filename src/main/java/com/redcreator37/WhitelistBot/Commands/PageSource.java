@@ -0,0 +1,84 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.core.spec.EmbedCreateSpec;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Supplies the pages of a listing shown by the {@link Paginator}. The
+ * pages are loaded one at a time, each starting at the cursor returned
+ * with the page before it.
+ */
+public interface PageSource {
+
+    /**
+     * A single loaded page of a listing
+     */
+    final class Page {
+
+        /**
+         * The rendered lines of the page
+         */
+        private final List<String> lines;
+
+        /**
+         * The cursor of the next page or <code>null</code> if this is
+         * the last page
+         */
+        private final String next;
+
+        /**
+         * Constructs a new Page instance
+         *
+         * @param lines the rendered lines of the page
+         * @param next  the cursor of the next page or <code>null</code>
+         *              if this is the last page
+         */
+        public Page(List<String> lines, String next) {
+            this.lines = lines;
+            this.next = next;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        public String getNext() {
+            return next;
+        }
+
+    }
+
+    /**
+     * Loads the page starting at this cursor. This may block, so it's
+     * called on the database threads.
+     *
+     * @param cursor the cursor returned with the previous page or
+     *               <code>null</code> for the first page
+     * @param limit  the maximum number of lines on the page
+     * @return the loaded {@link Page}
+     * @throws SQLException on errors
+     */
+    Page load(String cursor, int limit) throws SQLException;
+
+    /**
+     * Returns the total number of pages, if it's known
+     *
+     * @param pageSize the number of lines on each page
+     * @return the number of pages or <code>0</code> if it isn't known
+     */
+    int countPages(int pageSize);
+
+    /**
+     * Renders these lines into the embed
+     *
+     * @param spec  the {@link EmbedCreateSpec} to render into
+     * @param lines the lines on the page
+     * @param page  the index of the page
+     * @param pages the total number of pages, or the number of pages
+     *              seen so far if it isn't known
+     */
+    void render(EmbedCreateSpec spec, List<String> lines, int page, int pages);
+
+}
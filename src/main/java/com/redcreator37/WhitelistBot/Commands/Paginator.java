@@ -0,0 +1,217 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.event.domain.message.ReactionAddEvent;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.reaction.ReactionEmoji;
+import reactor.core.publisher.Mono;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Shows a listing (ex. the whitelist of a guild) as a single message,
+ * whose pages are switched by reacting to it. Each page is loaded only
+ * when it's shown, using the cursor returned with the previous page.
+ */
+public class Paginator {
+
+    /**
+     * The reaction which shows the previous page
+     */
+    private static final ReactionEmoji PREVIOUS = ReactionEmoji.unicode("\u25C0");
+
+    /**
+     * The reaction which shows the next page
+     */
+    private static final ReactionEmoji NEXT = ReactionEmoji.unicode("\u25B6");
+
+    /**
+     * The state of a single paginated message
+     */
+    private static final class Session {
+
+        private final PageSource source;
+
+        /**
+         * The user who requested the list, who's the only one allowed to
+         * switch the pages
+         */
+        private final Snowflake author;
+
+        private final Message message;
+
+        /**
+         * The cursors of the pages visited so far, starting with
+         * <code>null</code> for the first page
+         */
+        private final List<String> cursors = new ArrayList<>();
+
+        /**
+         * The index of the currently shown page
+         */
+        private int page = 0;
+
+        /**
+         * The currently shown page
+         */
+        private PageSource.Page shown;
+
+        /**
+         * The time when the session was last used
+         */
+        private volatile Instant lastUsed = Instant.now();
+
+        private Session(PageSource source, Snowflake author, Message message, PageSource.Page shown) {
+            this.source = source;
+            this.author = author;
+            this.message = message;
+            this.shown = shown;
+            cursors.add(null);
+        }
+
+    }
+
+    /**
+     * The active sessions, keyed by the IDs of their messages
+     */
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * The number of lines shown on each page
+     */
+    private final int pageSize;
+
+    /**
+     * How long a session can stay unused before it expires, in seconds
+     */
+    private final long idleTimeout;
+
+    /**
+     * Constructs a new Paginator instance
+     *
+     * @param pageSize    the number of lines shown on each page
+     * @param idleTimeout how long a paginated message can stay unused
+     *                    before its controls stop working, in seconds
+     */
+    public Paginator(int pageSize, long idleTimeout) {
+        this.pageSize = pageSize;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Hooks up the reaction handler which switches the pages
+     *
+     * @param client the {@link GatewayDiscordClient} to listen on
+     */
+    public void subscribe(GatewayDiscordClient client) {
+        client.getEventDispatcher().on(ReactionAddEvent.class)
+                .flatMap(e -> {
+                    Session session = sessions.get(e.getMessageId().asLong());
+                    if (session == null || !e.getUserId().equals(session.author)) return Mono.empty();
+                    int direction = NEXT.equals(e.getEmoji()) ? 1 : PREVIOUS.equals(e.getEmoji()) ? -1 : 0;
+                    if (direction == 0) return Mono.empty();
+                    return turn(session, direction)
+                            // requires the "Manage Messages" permission, which the bot may lack
+                            .then(session.message.removeReaction(e.getEmoji(), e.getUserId())
+                                    .onErrorResume(ex -> Mono.empty()))
+                            .onErrorResume(ex -> {
+                                System.err.println(MessageFormat.format(lc("error-format"), ex.getMessage()));
+                                return Mono.empty();
+                            });
+                })
+                .subscribe();
+    }
+
+    /**
+     * Sends the first page of this listing into the channel of the
+     * {@link MessageCreateEvent}, with the page controls if there's more
+     * than one page
+     *
+     * @param event  the {@link MessageCreateEvent} which occurred when
+     *               the message was sent
+     * @param source the {@link PageSource} of the listing to show
+     * @return an empty {@link Mono} completing once the page is sent
+     */
+    public Mono<Void> open(MessageCreateEvent event, PageSource source) {
+        return DatabaseScheduler.call(() -> source.load(null, pageSize))
+                .flatMap(shown -> CommandUtils.replySelfEmbed(event, spec ->
+                        source.render(spec, shown.getLines(), 0, countPages(source, 0, shown)))
+                        .flatMap(message -> {
+                            if (shown.getNext() == null || !event.getMessage().getAuthor().isPresent())
+                                return Mono.empty();
+                            expire();
+                            Snowflake author = event.getMessage().getAuthor().get().getId();
+                            sessions.put(message.getId().asLong(), new Session(source, author, message, shown));
+                            return message.addReaction(PREVIOUS).then(message.addReaction(NEXT));
+                        }));
+    }
+
+    /**
+     * Moves this session by one page and shows the page
+     *
+     * @param session   the {@link Session} to move
+     * @param direction <code>1</code> to move forward, <code>-1</code>
+     *                  to move back
+     * @return an empty {@link Mono} completing once the page is shown
+     */
+    private Mono<Void> turn(Session session, int direction) {
+        String cursor;
+        int target;
+        synchronized (session) {
+            session.lastUsed = Instant.now();
+            target = session.page + direction;
+            if (target < 0 || direction > 0 && session.shown.getNext() == null) return Mono.empty();
+            if (target == session.cursors.size()) session.cursors.add(session.shown.getNext());
+            cursor = session.cursors.get(target);
+        }
+        return DatabaseScheduler.call(() -> session.source.load(cursor, pageSize))
+                .filter(shown -> !shown.getLines().isEmpty())
+                .flatMap(shown -> {
+                    synchronized (session) {
+                        session.page = target;
+                        session.shown = shown;
+                    }
+                    return CommandUtils.getSelf(session.message.getClient())
+                            .flatMap(bot -> session.message.edit(edit -> edit.setEmbed(spec -> {
+                                session.source.render(spec, shown.getLines(), target,
+                                        countPages(session.source, target, shown));
+                                CommandUtils.setSelfAuthor(bot, spec);
+                            })));
+                }).then();
+    }
+
+    /**
+     * Returns the number of pages of this listing, or the number of
+     * pages seen so far if the listing can't count them
+     *
+     * @param source the {@link PageSource} of the listing
+     * @param page   the index of the shown page
+     * @param shown  the shown {@link PageSource.Page}
+     * @return the number of pages, which is at least one more than the
+     * shown page if there are further pages
+     */
+    private int countPages(PageSource source, int page, PageSource.Page shown) {
+        int seen = shown.getNext() == null ? page + 1 : page + 2;
+        return Math.max(seen, source.countPages(pageSize));
+    }
+
+    /**
+     * Forgets the sessions which haven't been used for longer than the
+     * idle timeout, which also disables their page controls
+     */
+    public void expire() {
+        Instant limit = Instant.now().minusSeconds(idleTimeout);
+        sessions.values().removeIf(session -> session.lastUsed.isBefore(limit));
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.guild.GuildCreateEvent;
+import discord4j.core.event.domain.guild.GuildDeleteEvent;
+import discord4j.core.event.domain.role.RoleCreateEvent;
+import discord4j.core.event.domain.role.RoleDeleteEvent;
+import discord4j.core.event.domain.role.RoleUpdateEvent;
+import discord4j.core.object.entity.Member;
+import discord4j.core.object.entity.Role;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the role names of each guild, so permission checks can be
+ * made without any requests to Discord.
+ * <p>
+ * The role IDs of the invoking member are part of every message event,
+ * so a check only compares the names of those roles with the required
+ * role. The cache is kept current from the role gateway events.
+ */
+public class PermissionCache {
+
+    /**
+     * Gets notified when a role is renamed
+     */
+    @FunctionalInterface
+    public interface RenameListener {
+
+        /**
+         * Handles the rename of a role
+         *
+         * @param guildId the snowflake of the guild the role is in
+         * @param oldName the previous name of the role
+         * @param newName the current name of the role
+         */
+        void renamed(Snowflake guildId, String oldName, String newName);
+
+    }
+
+    /**
+     * The role names of each known guild, keyed by the role IDs
+     */
+    private final Map<Long, Map<Long, String>> roles = new ConcurrentHashMap<>();
+
+    /**
+     * The listener notified about role renames
+     */
+    private final RenameListener renameListener;
+
+    /**
+     * Constructs a new PermissionCache instance
+     *
+     * @param renameListener the listener notified about role renames
+     */
+    public PermissionCache(RenameListener renameListener) {
+        this.renameListener = renameListener;
+    }
+
+    /**
+     * Hooks up the gateway event handlers which keep this cache current
+     *
+     * @param client the {@link GatewayDiscordClient} to listen on
+     */
+    public void subscribe(GatewayDiscordClient client) {
+        client.getEventDispatcher().on(GuildCreateEvent.class)
+                .flatMap(e -> e.getGuild().getRoles().doOnNext(this::put).then())
+                .subscribe();
+        client.getEventDispatcher().on(GuildDeleteEvent.class)
+                .subscribe(e -> roles.remove(e.getGuildId().asLong()));
+        client.getEventDispatcher().on(RoleCreateEvent.class)
+                .subscribe(e -> put(e.getRole()));
+        client.getEventDispatcher().on(RoleUpdateEvent.class)
+                .subscribe(e -> put(e.getCurrent()));
+        client.getEventDispatcher().on(RoleDeleteEvent.class).subscribe(e -> {
+            Map<Long, String> names = roles.get(e.getGuildId().asLong());
+            if (names != null) names.remove(e.getRoleId().asLong());
+        });
+    }
+
+    /**
+     * Stores the name of this role and reports it if it was renamed
+     *
+     * @param role the created or updated {@link Role}
+     */
+    private void put(Role role) {
+        String old = roles.computeIfAbsent(role.getGuildId().asLong(), id -> new ConcurrentHashMap<>())
+                .put(role.getId().asLong(), role.getName());
+        if (old != null && !old.equals(role.getName()))
+            renameListener.renamed(role.getGuildId(), old, role.getName());
+    }
+
+    /**
+     * Checks whether this member has a role with this name
+     *
+     * @param member   the {@link Member} to check
+     * @param roleName the name of the required role
+     * @return <code>true</code> if the member has the role
+     */
+    public Mono<Boolean> hasRole(Member member, String roleName) {
+        Map<Long, String> names = roles.get(member.getGuildId().asLong());
+        if (names == null)  // the guild hasn't been loaded yet
+            return CommandUtils.findRole(member, roleName).hasElement();
+        for (Snowflake roleId : member.getRoleIds())
+            if (roleName.equals(names.get(roleId.asLong())))
+                return Mono.just(true);
+        return Mono.just(false);
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A set of token buckets with the same limit, keyed by IDs (ex. the
+ * snowflakes of the users).
+ * <p>
+ * Each bucket is a single {@link AtomicLong} updated without locking.
+ * Instead of counting the tokens, it holds the time when the bucket
+ * will be full again (the generic cell rate algorithm), so refilling
+ * needs no background work and no fractions of tokens are lost. Full
+ * buckets carry no information and are removed by {@link #expire()},
+ * which first marks them as expired, so a token can't be taken from a
+ * bucket which is being removed.
+ */
+public class TokenBuckets {
+
+    /**
+     * The state of a bucket which has been removed from the map, which
+     * makes the requests look up a new bucket instead
+     */
+    private static final long EXPIRED = -1;
+
+    /**
+     * The buckets, keyed by their IDs
+     */
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * The time it takes to refill a single token, in milliseconds
+     */
+    private final long interval;
+
+    /**
+     * How far ahead of the current time the full time may be while
+     * still accepting requests, which allows the bursts, in milliseconds
+     */
+    private final long tolerance;
+
+    /**
+     * Constructs a new TokenBuckets instance
+     *
+     * @param burst     the number of tokens in a full bucket
+     * @param perMinute the number of tokens refilled each minute
+     */
+    public TokenBuckets(int burst, int perMinute) {
+        if (burst < 1 || perMinute < 1)
+            throw new IllegalArgumentException("Invalid bucket limit: " + burst + ", " + perMinute + "/min");
+        this.interval = Math.max(1, 60000L / perMinute);
+        this.tolerance = interval * (burst - 1);
+    }
+
+    /**
+     * Attempts to take a token from the bucket with this ID
+     *
+     * @param id the ID of the bucket
+     * @return <code>0</code> if a token was taken or the number of
+     * milliseconds until the next token is available if the request was
+     * rejected
+     */
+    public long tryAcquire(long id) {
+        long now = System.currentTimeMillis();
+        while (true) {
+            AtomicLong bucket = buckets.computeIfAbsent(id, key -> new AtomicLong());
+            long state = bucket.get();
+            if (state == EXPIRED) {
+                buckets.remove(id, bucket);
+                continue;
+            }
+            long full = Math.max(state, now);
+            if (full - now > tolerance) return Math.max(1, full - now - tolerance);
+            if (bucket.compareAndSet(state, full + interval)) return 0;
+        }
+    }
+
+    /**
+     * Gives back a token taken from the bucket with this ID, ex. when
+     * a request is rejected by another limit after all
+     *
+     * @param id the ID of the bucket
+     */
+    public void release(long id) {
+        AtomicLong bucket = buckets.get(id);
+        if (bucket == null) return;
+        long now = System.currentTimeMillis();
+        while (true) {
+            long full = bucket.get();
+            if (full <= now) return;    // also covers the expired buckets
+            if (bucket.compareAndSet(full, Math.max(now, full - interval))) return;
+        }
+    }
+
+    /**
+     * Removes the buckets which are full again
+     */
+    public void expire() {
+        long now = System.currentTimeMillis();
+        buckets.forEach((id, bucket) -> {
+            long full = bucket.get();
+            if (full <= now && bucket.compareAndSet(full, EXPIRED)) buckets.remove(id, bucket);
+        });
+    }
+
+    /**
+     * Returns the number of buckets which aren't full
+     *
+     * @return the number of tracked buckets
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import com.redcreator37.WhitelistBot.DataModels.BulkResult;
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Imports the player identifiers read from a file into a guild's
+ * whitelist.
+ * <p>
+ * The file is read one line at a time, taking the first column of each
+ * line, so both plain lists and CSV files are accepted. The identifiers
+ * are validated as they're read and whitelisted in chunks, each in a
+ * single transaction, so only one chunk is held in memory regardless
+ * of the file's size. The import stops at the first chunk which can't
+ * be written. The progress can be read from other threads while the
+ * import is running.
+ */
+public class WhitelistImport {
+
+    /**
+     * The maximum number of invalid identifiers kept for the report
+     */
+    private static final int MAX_INVALID_KEPT = 10;
+
+    private final Guild guild;
+
+    /**
+     * The {@link MessageCreateEvent} of the import command, whose author
+     * is recorded in the audit log
+     */
+    private final MessageCreateEvent event;
+
+    /**
+     * The number of identifiers whitelisted in a single transaction
+     */
+    private final int chunkSize;
+
+    private volatile int linesRead = 0;
+
+    private volatile int imported = 0;
+
+    /**
+     * The number of identifiers which were already whitelisted
+     */
+    private volatile int unchanged = 0;
+
+    private volatile int invalid = 0;
+
+    /**
+     * The first few invalid identifiers
+     */
+    private final List<String> invalidKept = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * The reason the import stopped or <code>null</code> if it didn't
+     * fail
+     */
+    private volatile String error = null;
+
+    /**
+     * Constructs a new WhitelistImport instance
+     *
+     * @param guild     the {@link Guild} to import the players into
+     * @param event     the {@link MessageCreateEvent} of the import
+     *                  command
+     * @param chunkSize the number of identifiers whitelisted in a
+     *                  single transaction
+     */
+    public WhitelistImport(Guild guild, MessageCreateEvent event, int chunkSize) {
+        this.guild = guild;
+        this.event = event;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the identifiers from this {@link Reader} and whitelists
+     * them. This blocks until the whole input is read or the import
+     * fails, so it must run on the database threads.
+     *
+     * @param reader the {@link Reader} to read the identifiers from
+     * @throws IOException on read errors
+     */
+    public void run(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            linesRead++;
+            String id = firstColumn(line);
+            if (id.isEmpty()) continue;
+            if (CommandUtils.checkIdInvalid(id)) {
+                invalid++;
+                if (invalidKept.size() < MAX_INVALID_KEPT) invalidKept.add(id);
+            } else {
+                chunk.add(id);
+                if (chunk.size() >= chunkSize && !whitelist(chunk)) return;
+            }
+        }
+        whitelist(chunk);
+    }
+
+    /**
+     * Whitelists this chunk of identifiers and clears it
+     *
+     * @param chunk the identifiers to whitelist
+     * @return <code>false</code> if the chunk couldn't be written
+     */
+    private boolean whitelist(List<String> chunk) {
+        if (chunk.isEmpty()) return true;
+        BulkResult result = guild.whitelistPlayers(chunk);
+        chunk.clear();
+        CommandUtils.recordAudit(event, guild, AuditEntry.Action.WHITELIST, result.getSucceeded());
+        imported += result.getSucceeded().size();
+        unchanged += result.getUnchanged().size();
+        if (result.getFailed().isEmpty()) return true;
+        error = result.getFailed().values().iterator().next();
+        return false;
+    }
+
+    /**
+     * Returns the first column of this CSV line, without the
+     * surrounding whitespace and quotes
+     *
+     * @param line the line to parse
+     * @return the value of the first column, which is empty if there's
+     * none
+     */
+    static String firstColumn(String line) {
+        int end = line.length();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ',' || c == ';' || c == '\t') {
+                end = i;
+                break;
+            }
+        }
+        String value = line.substring(0, end).trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"')
+            value = value.substring(1, value.length() - 1).trim();
+        return value;
+    }
+
+    public int getLinesRead() {
+        return linesRead;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Returns the first few invalid identifiers
+     *
+     * @return a copy of the kept invalid identifiers
+     */
+    public List<String> getInvalidKept() {
+        synchronized (invalidKept) {
+            return new ArrayList<>(invalidKept);
+        }
+    }
+
+    /**
+     * Returns the reason the import stopped early
+     *
+     * @return the error message or <code>null</code> if the import
+     * didn't fail
+     */
+    public String getError() {
+        return error;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.redcreator37.WhitelistBot.Commands;
+
+import com.redcreator37.WhitelistBot.DataModels.Guild;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.rest.util.Color;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.List;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * The pages of a guild's whitelist in alphabetical order, where the
+ * cursor of a page is the last identifier on the page before it
+ */
+public class WhitelistPages implements PageSource {
+
+    private final Guild guild;
+
+    /**
+     * Constructs a new WhitelistPages instance
+     *
+     * @param guild the {@link Guild} whose whitelist to show
+     */
+    public WhitelistPages(Guild guild) {
+        this.guild = guild;
+    }
+
+    @Override
+    public Page load(String cursor, int limit) throws SQLException {
+        List<String> shown = guild.getWhitelistPage(cursor == null ? "" : cursor, limit);
+        return new Page(shown, shown.size() < limit ? null : shown.get(shown.size() - 1));
+    }
+
+    @Override
+    public int countPages(int pageSize) {
+        if (guild.getLastRefresh() == null) return 0;   // not cached yet, only the visited pages are known
+        return Math.max(1, (guild.getWhitelistedCount() + pageSize - 1) / pageSize);
+    }
+
+    @Override
+    public void render(EmbedCreateSpec spec, List<String> shown, int page, int pages) {
+        spec.setTitle(MessageFormat.format(lc("whitelisted-players-format"), page + 1, pages));
+        spec.setColor(Color.YELLOW);
+        if (shown.isEmpty()) spec.setDescription(lc("no-whitelisted-players"));
+        else {
+            StringBuilder b = new StringBuilder(shown.size() * 32);
+            for (String id : shown) b.append('`').append(id).append("`\n");
+            spec.setDescription(b.toString());
+        }
+        if (pages > 1) spec.setFooter(lc("react-to-switch-pages"), null);
+        spec.setTimestamp(Instant.now());
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import discord4j.common.util.Snowflake;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Represents a single change of a guild's whitelist in the audit log
+ */
+public class AuditEntry {
+
+    /**
+     * The kinds of recorded whitelist changes
+     */
+    public enum Action {
+        WHITELIST, UNLIST
+    }
+
+    /**
+     * The ID of the entry in the audit log or <code>0</code> if the
+     * entry hasn't been written yet
+     */
+    private final long id;
+
+    private final Snowflake guildId;
+
+    /**
+     * The member who made the change
+     */
+    private final Snowflake actorId;
+
+    private final Action action;
+
+    /**
+     * The identifier of the affected player
+     */
+    private final String identifier;
+
+    private final Instant created;
+
+    /**
+     * Constructs a new AuditEntry instance
+     *
+     * @param id         the ID of the entry in the audit log or
+     *                   <code>0</code> if it hasn't been written yet
+     * @param guildId    the snowflake of the guild whose whitelist was
+     *                   changed
+     * @param actorId    the snowflake of the member who made the change
+     * @param action     the kind of the change
+     * @param identifier the identifier of the affected player
+     * @param created    the time of the change
+     */
+    public AuditEntry(long id, Snowflake guildId, Snowflake actorId, Action action,
+                      String identifier, Instant created) {
+        this.id = id;
+        this.guildId = guildId;
+        this.actorId = actorId;
+        this.action = action;
+        this.identifier = identifier;
+        this.created = created;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Snowflake getGuildId() {
+        return guildId;
+    }
+
+    public Snowflake getActorId() {
+        return actorId;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public Instant getCreated() {
+        return created;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuditEntry)) return false;
+        AuditEntry that = (AuditEntry) o;
+        return id == that.id && guildId.equals(that.guildId) && actorId.equals(that.actorId)
+                && action == that.action && identifier.equals(that.identifier) && created.equals(that.created);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, guildId, actorId, action, identifier, created);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the outcome of a whitelist operation performed on
+ * multiple players at once
+ */
+public class BulkResult {
+
+    /**
+     * The identifiers of the players the operation succeeded for
+     */
+    private final List<String> succeeded = new ArrayList<>();
+
+    /**
+     * The identifiers of the players which were already in the
+     * requested state
+     */
+    private final List<String> unchanged = new ArrayList<>();
+
+    /**
+     * The identifiers of the players the operation failed for, mapped
+     * to the reasons of the failures
+     */
+    private final Map<String, String> failed = new LinkedHashMap<>();
+
+    public void addSucceeded(String playerId) {
+        succeeded.add(playerId);
+    }
+
+    public void addUnchanged(String playerId) {
+        unchanged.add(playerId);
+    }
+
+    public void addFailed(String playerId, String reason) {
+        failed.put(playerId, reason);
+    }
+
+    public List<String> getSucceeded() {
+        return Collections.unmodifiableList(succeeded);
+    }
+
+    public List<String> getUnchanged() {
+        return Collections.unmodifiableList(unchanged);
+    }
+
+    public Map<String, String> getFailed() {
+        return Collections.unmodifiableMap(failed);
+    }
+
+}
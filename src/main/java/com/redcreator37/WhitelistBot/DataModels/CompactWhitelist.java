@@ -0,0 +1,268 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A memory-efficient {@link Set} of whitelisted players.
+ * <p>
+ * Identifiers whose values fit into a <code>long</code> (ex. SteamIDs)
+ * are stored as primitives in insertion-ordered arrays, indexed by an
+ * open-addressing hash table. This takes about 20 bytes per player
+ * instead of the ~100 bytes of a {@link WhitelistedPlayer} in a
+ * {@link LinkedHashSet}. All other identifiers are kept in a regular
+ * set. The player objects are recreated when iterating, and the packed
+ * players are iterated before the rest.
+ * <p>
+ * This class isn't thread-safe.
+ */
+public class CompactWhitelist extends AbstractSet<WhitelistedPlayer> {
+
+    private static final IdentifierType[] TYPES = IdentifierType.values();
+
+    /**
+     * Marks the removed entries in {@link #keys}
+     */
+    private static final short REMOVED = -1;
+
+    /**
+     * The numeric values of the packed identifiers, in insertion order
+     */
+    private long[] values = new long[8];
+
+    /**
+     * The types and digit counts of the packed identifiers, encoded as
+     * <code>type &lt;&lt; 8 | digits</code>
+     */
+    private short[] keys = new short[8];
+
+    /**
+     * The number of used entries, including the removed ones
+     */
+    private int entries = 0;
+
+    /**
+     * The number of packed identifiers in this set
+     */
+    private int packed = 0;
+
+    /**
+     * The hash table holding the entry indexes incremented by one,
+     * where <code>0</code> marks an empty slot. It's always twice the
+     * size of the entry arrays, so it's at most half full.
+     */
+    private int[] table = new int[16];
+
+    /**
+     * The identifiers which can't be packed
+     */
+    private final Set<WhitelistedPlayer> others = new LinkedHashSet<>();
+
+    /**
+     * The number of structural modifications, used to detect
+     * concurrent modifications while iterating
+     */
+    private int modCount = 0;
+
+    /**
+     * Returns the packed key of this player's identifier
+     *
+     * @param player the {@link WhitelistedPlayer} to check
+     * @return the {@link PlayerIdentifier} if it can be packed, or
+     * <code>null</code> if the player belongs to the fallback set
+     */
+    private static PlayerIdentifier packable(WhitelistedPlayer player) {
+        PlayerIdentifier id = player.getParsed().orElse(null);
+        return id != null && id.getType().isPacked() ? id : null;
+    }
+
+    private static short key(PlayerIdentifier id) {
+        return (short) (id.getType().ordinal() << 8 | id.getDigits());
+    }
+
+    private static int hash(long value, short key) {
+        long h = (value ^ (long) key << 48) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Finds the slot of this entry in the hash table
+     *
+     * @param value the numeric value of the identifier
+     * @param key   the encoded type and digit count of the identifier
+     * @return the slot holding the entry or the empty slot where it
+     * should be added
+     */
+    private int slot(long value, short key) {
+        int mask = table.length - 1, slot = hash(value, key) & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (values[entry] == value && keys[entry] == key) break;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the live entries into arrays of this capacity and rebuilds
+     * the hash table
+     *
+     * @param capacity the new capacity of the entry arrays
+     */
+    private void rebuild(int capacity) {
+        long[] oldValues = values;
+        short[] oldKeys = keys;
+        int oldEntries = entries;
+        values = new long[capacity];
+        keys = new short[capacity];
+        table = new int[capacity * 2];
+        entries = 0;
+        for (int i = 0; i < oldEntries; i++) {
+            if (oldKeys[i] == REMOVED) continue;
+            values[entries] = oldValues[i];
+            keys[entries] = oldKeys[i];
+            table[slot(oldValues[i], oldKeys[i])] = ++entries;
+        }
+    }
+
+    @Override
+    public boolean add(WhitelistedPlayer player) {
+        PlayerIdentifier id = packable(player);
+        if (id == null) {
+            boolean added = others.add(player);
+            if (added) modCount++;
+            return added;
+        }
+        short key = key(id);
+        if (table[slot(id.getValue(), key)] != 0) return false;
+        if (entries == values.length)   // reclaim the removed entries or grow
+            rebuild(packed < entries / 2 ? values.length : values.length * 2);
+        values[entries] = id.getValue();
+        keys[entries] = key;
+        table[slot(id.getValue(), key)] = ++entries;
+        packed++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof WhitelistedPlayer)) return false;
+        WhitelistedPlayer player = (WhitelistedPlayer) o;
+        PlayerIdentifier id = packable(player);
+        if (id == null) return others.contains(player);
+        return table[slot(id.getValue(), key(id))] != 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof WhitelistedPlayer)) return false;
+        WhitelistedPlayer player = (WhitelistedPlayer) o;
+        PlayerIdentifier id = packable(player);
+        if (id == null) {
+            boolean removed = others.remove(player);
+            if (removed) modCount++;
+            return removed;
+        }
+        return removePacked(id.getValue(), key(id));
+    }
+
+    /**
+     * Removes this packed entry. The hash table entries following it are
+     * shifted back, so no tombstones are needed.
+     *
+     * @param value the numeric value of the identifier
+     * @param key   the encoded type and digit count of the identifier
+     * @return <code>true</code> if the entry was present
+     */
+    private boolean removePacked(long value, short key) {
+        int slot = slot(value, key);
+        if (table[slot] == 0) return false;
+        keys[table[slot] - 1] = REMOVED;
+        int mask = table.length - 1, next = slot;
+        table[slot] = 0;
+        while (table[next = (next + 1) & mask] != 0) {
+            int entry = table[next] - 1;
+            int home = hash(values[entry], keys[entry]) & mask;
+            // leave entries whose home slot lies cyclically in (slot, next]
+            boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (stays) continue;
+            table[slot] = table[next];
+            table[next] = 0;
+            slot = next;
+        }
+        packed--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        values = new long[8];
+        keys = new short[8];
+        table = new int[16];
+        entries = 0;
+        packed = 0;
+        others.clear();
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return packed + others.size();
+    }
+
+    @Override
+    public Iterator<WhitelistedPlayer> iterator() {
+        return new Iterator<WhitelistedPlayer>() {
+            private int index = 0, expectedModCount = modCount;
+            private long lastValue;
+            private short lastKey = REMOVED;
+            private Iterator<WhitelistedPlayer> rest = null;
+
+            private void skipRemoved() {
+                while (index < entries && keys[index] == REMOVED) index++;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (rest != null) return rest.hasNext();
+                skipRemoved();
+                return index < entries || !others.isEmpty();
+            }
+
+            @Override
+            public WhitelistedPlayer next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (rest == null) {
+                    skipRemoved();
+                    if (index < entries) {
+                        lastValue = values[index];
+                        lastKey = keys[index++];
+                        return new WhitelistedPlayer(PlayerIdentifier.of(TYPES[lastKey >> 8],
+                                lastValue, lastKey & 0xff));
+                    }
+                    rest = others.iterator();
+                }
+                lastKey = REMOVED;
+                if (!rest.hasNext()) throw new NoSuchElementException();
+                return rest.next();
+            }
+
+            @Override
+            public void remove() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (rest != null) rest.remove();
+                else if (lastKey == REMOVED || !removePacked(lastValue, lastKey))
+                    throw new IllegalStateException();
+                lastKey = REMOVED;
+                expectedModCount = ++modCount;
+            }
+        };
+    }
+
+}
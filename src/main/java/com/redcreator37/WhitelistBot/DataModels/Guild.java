@@ -1,14 +1,20 @@
 package com.redcreator37.WhitelistBot.DataModels;
 
-import com.redcreator37.WhitelistBot.Database.GameHandling.FiveMDb;
 import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
 import discord4j.common.util.Snowflake;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
 
 /**
  * Represents exactly one Discord {@link discord4j.core.object.entity.Guild}
@@ -33,22 +39,25 @@ public class Guild {
      * The role of the guild members required to retrieve / alter the
      * data for this guild
      */
-    private String adminRole;
+    private volatile String adminRole;
 
     /**
      * The connection information for the shared database
      */
-    private SharedDbProvider sharedDbProvider;
+    private volatile SharedDbProvider sharedDbProvider;
 
     /**
-     * The shared MySQL database with all game data
+     * The pool and the whitelist cache of the shared database, which
+     * are shared with the other guilds using the same database, or
+     * <code>null</code> if it isn't connected
      */
-    private FiveMDb fiveMDb;
+    private volatile SharedWhitelist shared;
 
     /**
-     * A list of all whitelisted players in this guild
+     * The time of the last failed attempt to connect the shared
+     * database or <code>null</code> if the last attempt succeeded
      */
-    private List<WhitelistedPlayer> whitelisted;
+    private volatile Instant lastConnectFailure;
 
     /**
      * Constructs a new Guild instance
@@ -88,13 +97,96 @@ public class Guild {
     }
 
     /**
-     * Connects to the shared game database, registered in this guild
+     * Connects to the shared game database, registered in this guild.
+     * If another guild already uses the same database, its pool and
+     * whitelist cache are shared instead of opening new ones.
      *
      * @throws SQLException on errors
      */
     public void connectSharedDb() throws SQLException {
-        fiveMDb = new FiveMDb(sharedDbProvider.connect());
-        whitelisted = fiveMDb.getWhitelistedPlayers();
+        connectSharedDb(true);
+    }
+
+    /**
+     * Connects to the shared game database, registered in this guild,
+     * and optionally leaves loading its whitelist cache to the
+     * background refreshes
+     *
+     * @param load whether to load the whitelist cache right away
+     * @throws SQLException on errors
+     */
+    public synchronized void connectSharedDb(boolean load) throws SQLException {
+        try {
+            SharedWhitelist previous = shared;
+            shared = SharedWhitelist.acquire(sharedDbProvider, load);
+            if (previous != null) previous.release();
+            lastConnectFailure = null;
+        } catch (SQLException e) {
+            lastConnectFailure = Instant.now();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the shared game database of this guild, which closes its
+     * pool unless other guilds still use it
+     */
+    public synchronized void disconnectSharedDb() {
+        if (shared == null) return;
+        shared.release();
+        shared = null;
+    }
+
+    /**
+     * Connects to the shared game database unless it's already
+     * connected, there's none registered or the last attempt failed
+     * less than the retry delay ago
+     *
+     * @param retryDelay how long to wait after a failed attempt before
+     *                   trying again
+     * @param load       whether to load the whitelist cache right away
+     * @return <code>true</code> if the database was connected by this
+     * call
+     * @throws SQLException on errors
+     */
+    public synchronized boolean connectIfNeeded(Duration retryDelay, boolean load) throws SQLException {
+        if (shared != null || sharedDbProvider == null) return false;
+        Instant failed = lastConnectFailure;
+        if (failed != null && failed.plus(retryDelay).isAfter(Instant.now())) return false;
+        connectSharedDb(load);
+        return true;
+    }
+
+    /**
+     * Reloads the whitelist cache from the shared game database, which
+     * also refreshes it for the other guilds using the same database
+     *
+     * @throws SQLException on errors
+     */
+    public void refreshWhitelist() throws SQLException {
+        connected().refresh();
+    }
+
+    /**
+     * Checks whether the shared game database of this guild has been
+     * connected
+     *
+     * @return <code>true</code> if the database is connected
+     */
+    public boolean isConnected() {
+        return shared != null;
+    }
+
+    /**
+     * Returns the shared game database of this guild
+     *
+     * @return the connected {@link SharedWhitelist}
+     * @throws SQLException if the database isn't connected
+     */
+    private SharedWhitelist connected() throws SQLException {
+        SharedWhitelist current = shared;
+        if (current == null) throw new SQLException(lc("db-connect-could-not-be-established"));
+        return current;
     }
 
     /**
@@ -106,13 +198,9 @@ public class Guild {
      * message
      */
     public Optional<String> whitelistPlayer(String playerId) {
-        try {
-            fiveMDb.whitelistPlayer(new WhitelistedPlayer(playerId));
-            whitelisted.add(new WhitelistedPlayer(playerId));
-        } catch (SQLException e) {
-            return Optional.of(e.getMessage());
-        }
-        return Optional.empty();
+        SharedWhitelist current = shared;
+        if (current == null) return Optional.of(lc("db-connect-could-not-be-established"));
+        return current.whitelistPlayer(playerId);
     }
 
     /**
@@ -124,13 +212,51 @@ public class Guild {
      * message
      */
     public Optional<String> unlistPlayer(String playerId) {
-        try {
-            fiveMDb.removePlayer(new WhitelistedPlayer(playerId));
-            whitelisted.remove(new WhitelistedPlayer(playerId));
-        } catch (SQLException e) {
-            return Optional.of(e.getMessage());
-        }
-        return Optional.empty();
+        SharedWhitelist current = shared;
+        if (current == null) return Optional.of(lc("db-connect-could-not-be-established"));
+        return current.unlistPlayer(playerId);
+    }
+
+    /**
+     * Uses the connection to the in-game database to whitelist the
+     * players with these identifiers in a single transaction
+     *
+     * @param playerIds the identifiers of the players to whitelist
+     * @return the {@link BulkResult}, in which players which are
+     * already whitelisted are reported as unchanged
+     */
+    public BulkResult whitelistPlayers(Collection<String> playerIds) {
+        SharedWhitelist current = shared;
+        if (current == null) return notConnected(playerIds);
+        return current.whitelistPlayers(playerIds);
+    }
+
+    /**
+     * Uses the connection to the in-game database to remove the players
+     * with these identifiers from its whitelist in a single transaction
+     *
+     * @param playerIds the identifiers of the players to un-whitelist
+     * @return the {@link BulkResult}, in which players which weren't
+     * whitelisted are reported as unchanged
+     */
+    public BulkResult unlistPlayers(Collection<String> playerIds) {
+        SharedWhitelist current = shared;
+        if (current == null) return notConnected(playerIds);
+        return current.unlistPlayers(playerIds);
+    }
+
+    /**
+     * Reports all of these players as failed because the shared
+     * database isn't connected
+     *
+     * @param playerIds the identifiers of the players
+     * @return the {@link BulkResult} with all players failed
+     */
+    private static BulkResult notConnected(Collection<String> playerIds) {
+        BulkResult result = new BulkResult();
+        String error = lc("db-connect-could-not-be-established");
+        playerIds.forEach(id -> result.addFailed(id, error));
+        return result;
     }
 
     public Snowflake getSnowflake() {
@@ -145,19 +271,102 @@ public class Guild {
         return adminRole;
     }
 
+    /**
+     * Returns the time when the whitelist cache of the shared database
+     * was last loaded
+     *
+     * @return the time or <code>null</code> if the database isn't
+     * connected or its whitelist hasn't been loaded yet
+     */
+    public Instant getLastRefresh() {
+        SharedWhitelist current = shared;
+        return current == null ? null : current.getLastRefresh();
+    }
+
     public SharedDbProvider getSharedDbProvider() {
         return sharedDbProvider;
     }
 
-    public List<WhitelistedPlayer> getWhitelisted() {
-        return whitelisted;
+    /**
+     * Checks whether the player with this identifier is currently
+     * whitelisted in this guild
+     *
+     * @param playerId the identifier of the player
+     * @return <code>true</code> if the player is whitelisted
+     */
+    public boolean isWhitelisted(String playerId) {
+        SharedWhitelist current = shared;
+        return current != null && current.isWhitelisted(playerId);
+    }
+
+    /**
+     * Writes the identifiers of all players whitelisted in the shared
+     * database into this {@link Writer}, one per line in alphabetical
+     * order
+     *
+     * @param out the {@link Writer} to write into
+     * @return the number of written identifiers
+     * @throws SQLException if the database couldn't be queried
+     * @throws IOException  on write errors
+     */
+    public int exportWhitelist(Writer out) throws SQLException, IOException {
+        return connected().exportWhitelist(out);
+    }
+
+    /**
+     * Returns one page of the whitelisted players' identifiers, in
+     * alphabetical order. The page is selected from the whitelist cache
+     * if it's loaded, otherwise it's queried from the shared database.
+     *
+     * @param after the identifier after which the page starts, or an
+     *              empty string for the first page
+     * @param limit the maximum number of identifiers to return
+     * @return the {@link List} of identifiers
+     * @throws SQLException if the database couldn't be queried
+     */
+    public List<String> getWhitelistPage(String after, int limit) throws SQLException {
+        return connected().getWhitelistPage(after, limit);
+    }
+
+    /**
+     * Returns a copy of the players whitelisted in this guild
+     *
+     * @return the {@link Set} of whitelisted players, which is empty if
+     * the database isn't connected
+     */
+    public Set<WhitelistedPlayer> getWhitelisted() {
+        SharedWhitelist current = shared;
+        return current == null ? Collections.emptySet() : current.getWhitelisted();
+    }
+
+    /**
+     * Returns the number of players whitelisted in this guild
+     *
+     * @return the number of whitelisted players, which is <code>0</code>
+     * if the database isn't connected
+     */
+    public int getWhitelistedCount() {
+        SharedWhitelist current = shared;
+        return current == null ? 0 : current.getWhitelistedCount();
+    }
+
+    /**
+     * Returns the pool and the whitelist cache of the shared database,
+     * which may be used by other guilds as well
+     *
+     * @return the {@link SharedWhitelist} or <code>null</code> if the
+     * database isn't connected
+     */
+    public SharedWhitelist getSharedWhitelist() {
+        return shared;
     }
 
     public void setAdminRole(String adminRole) {
         this.adminRole = adminRole;
     }
 
-    public void setSharedDbProvider(SharedDbProvider sharedDbProvider) {
+    public synchronized void setSharedDbProvider(SharedDbProvider sharedDbProvider) {
+        if (this.sharedDbProvider != sharedDbProvider) disconnectSharedDb();
         this.sharedDbProvider = sharedDbProvider;
     }
 
@@ -165,17 +374,12 @@ public class Guild {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Guild)) return false;
-        Guild guild = (Guild) o;
-        return snowflake.equals(guild.snowflake)
-                && joined.equals(guild.joined) && Objects.equals(adminRole, guild.adminRole)
-                && Objects.equals(sharedDbProvider, guild.sharedDbProvider)
-                && Objects.equals(fiveMDb, guild.fiveMDb)
-                && Objects.equals(whitelisted, guild.whitelisted);
+        return snowflake.equals(((Guild) o).snowflake);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(snowflake, joined, adminRole, sharedDbProvider, fiveMDb, whitelisted);
+        return snowflake.hashCode();
     }
 
 }
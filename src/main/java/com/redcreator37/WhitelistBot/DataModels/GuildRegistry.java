@@ -0,0 +1,102 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import discord4j.common.util.Snowflake;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds all registered guilds and can be used from any thread.
+ * <p>
+ * Lookups go straight to a concurrent map. Registrations are rare, so
+ * each one also replaces an immutable snapshot of all guilds, which
+ * the background tasks can iterate without copying or locking.
+ */
+public class GuildRegistry {
+
+    /**
+     * The registered guilds, keyed by their snowflakes
+     */
+    private final Map<Snowflake, Guild> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * The read-only list of all registered guilds at the time of the
+     * last change
+     */
+    private volatile List<Guild> snapshot = Collections.emptyList();
+
+    /**
+     * Returns the guild with this snowflake
+     *
+     * @param snowflake the snowflake of the guild
+     * @return the matching {@link Guild} or <code>null</code> if it
+     * isn't registered
+     */
+    public Guild get(Snowflake snowflake) {
+        return guilds.get(snowflake);
+    }
+
+    /**
+     * Registers this guild unless a guild with the same snowflake is
+     * already registered
+     *
+     * @param guild the {@link Guild} to register
+     * @return <code>true</code> if the guild was registered
+     */
+    public synchronized boolean register(Guild guild) {
+        if (guilds.putIfAbsent(guild.getSnowflake(), guild) != null) return false;
+        updateSnapshot();
+        return true;
+    }
+
+    /**
+     * Registers all of these guilds at once, which is meant for filling
+     * the registry on startup. Already registered guilds are kept.
+     *
+     * @param loaded the guilds to register
+     */
+    public synchronized void registerAll(Collection<Guild> loaded) {
+        loaded.forEach(guild -> guilds.putIfAbsent(guild.getSnowflake(), guild));
+        updateSnapshot();
+    }
+
+    /**
+     * Unregisters this guild
+     *
+     * @param guild the {@link Guild} to unregister
+     * @return <code>true</code> if this exact guild was registered
+     */
+    public synchronized boolean unregister(Guild guild) {
+        if (!guilds.remove(guild.getSnowflake(), guild)) return false;
+        updateSnapshot();
+        return true;
+    }
+
+    private void updateSnapshot() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(guilds.values()));
+    }
+
+    /**
+     * Returns all guilds registered at the time of the call. Later
+     * changes don't affect the returned list.
+     *
+     * @return the read-only {@link List} of guilds
+     */
+    public List<Guild> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of registered guilds
+     *
+     * @return the number of guilds
+     */
+    public int size() {
+        return guilds.size();
+    }
+
+}
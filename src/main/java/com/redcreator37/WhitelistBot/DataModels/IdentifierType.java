@@ -0,0 +1,79 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+/**
+ * The types of player identifiers used by FiveM servers. New types are
+ * supported by adding them here, the parser picks them up by their
+ * prefix.
+ */
+public enum IdentifierType {
+
+    STEAM("steam", Encoding.HEX, 16),
+    LICENSE("license", Encoding.HEX, 40),
+    DISCORD("discord", Encoding.DECIMAL, 19),
+    FIVEM("fivem", Encoding.DECIMAL, 19),
+    XBL("xbl", Encoding.DECIMAL, 19);
+
+    /**
+     * How the value after the prefix is written
+     */
+    public enum Encoding {
+        HEX, DECIMAL
+    }
+
+    /**
+     * The prefix in front of the colon, in lowercase
+     */
+    private final String prefix;
+
+    private final Encoding encoding;
+
+    /**
+     * The maximum number of digits of the value
+     */
+    private final int maxDigits;
+
+    IdentifierType(String prefix, Encoding encoding, int maxDigits) {
+        this.prefix = prefix;
+        this.encoding = encoding;
+        this.maxDigits = maxDigits;
+    }
+
+    /**
+     * Returns the value of this digit in this type's encoding
+     *
+     * @param c the character to check
+     * @return the value of the digit or <code>-1</code> if it isn't a
+     * valid digit
+     */
+    int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (encoding == Encoding.DECIMAL) return -1;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Checks whether the values of this type fit into a single
+     * <code>long</code>
+     *
+     * @return <code>true</code> if the values are packed into a
+     * <code>long</code>
+     */
+    public boolean isPacked() {
+        return encoding == Encoding.DECIMAL ? maxDigits <= 19 : maxDigits <= 16;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public int getMaxDigits() {
+        return maxDigits;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import java.util.Locale;
+
+/**
+ * Represents a parsed player identifier (ex. <code>steam:110000112345678</code>)
+ * in its canonical, lowercase form.
+ * <p>
+ * Values which fit into a <code>long</code> (ex. SteamIDs and Discord
+ * IDs) are compared by their type and numeric value only. Longer values
+ * (ex. Rockstar licenses) are compared by their canonical text.
+ */
+public final class PlayerIdentifier {
+
+    /**
+     * All supported identifier types
+     */
+    private static final IdentifierType[] TYPES = IdentifierType.values();
+
+    private final IdentifierType type;
+
+    /**
+     * The numeric value of the identifier or <code>0</code> if the
+     * type's values don't fit into a <code>long</code>
+     */
+    private final long value;
+
+    /**
+     * The number of digits in the value, which keeps the leading zeros
+     * significant for packed values
+     */
+    private final int digits;
+
+    /**
+     * The canonical text of the identifier
+     */
+    private final String text;
+
+    private PlayerIdentifier(IdentifierType type, long value, int digits, String text) {
+        this.type = type;
+        this.value = value;
+        this.digits = digits;
+        this.text = text;
+    }
+
+    /**
+     * Parses this identifier. The prefix and the digits are accepted
+     * in any case.
+     *
+     * @param id the identifier to parse
+     * @return the parsed {@link PlayerIdentifier} or <code>null</code>
+     * if the identifier is invalid
+     */
+    public static PlayerIdentifier parse(String id) {
+        IdentifierType type = typeOf(id);
+        if (type == null) return null;
+        int start = type.getPrefix().length() + 1;
+        long value = 0;
+        if (type.isPacked()) {
+            int radix = type.getEncoding() == IdentifierType.Encoding.HEX ? 16 : 10;
+            for (int i = start; i < id.length(); i++)
+                value = value * radix + type.digit(id.charAt(i));
+        }
+        return new PlayerIdentifier(type, value, id.length() - start, canonical(id));
+    }
+
+    /**
+     * Recreates a packed identifier from its components
+     *
+     * @param type   the type of the identifier, whose values must be
+     *               packed
+     * @param value  the numeric value of the identifier
+     * @param digits the number of digits in the value
+     * @return the {@link PlayerIdentifier}
+     */
+    static PlayerIdentifier of(IdentifierType type, long value, int digits) {
+        String number = type.getEncoding() == IdentifierType.Encoding.HEX
+                ? Long.toHexString(value) : Long.toString(value);
+        StringBuilder b = new StringBuilder(type.getPrefix().length() + 1 + digits)
+                .append(type.getPrefix()).append(':');
+        for (int i = number.length(); i < digits; i++) b.append('0');
+        return new PlayerIdentifier(type, value, digits, b.append(number).toString());
+    }
+
+    /**
+     * Checks whether this identifier is valid without parsing it
+     *
+     * @param id the identifier to check
+     * @return <code>true</code> if the identifier is valid
+     */
+    public static boolean isValid(CharSequence id) {
+        return typeOf(id) != null;
+    }
+
+    /**
+     * Returns the type of this identifier if it's valid
+     *
+     * @param id the identifier to check
+     * @return the matching {@link IdentifierType} or <code>null</code>
+     * if the identifier is invalid
+     */
+    public static IdentifierType typeOf(CharSequence id) {
+        IdentifierType type = prefixType(id);
+        if (type == null) return null;
+        int start = type.getPrefix().length() + 1, digits = id.length() - start;
+        if (digits < 1 || digits > type.getMaxDigits()) return null;
+        boolean decimal = type.getEncoding() == IdentifierType.Encoding.DECIMAL;
+        long value = 0;
+        for (int i = start; i < id.length(); i++) {
+            int digit = type.digit(id.charAt(i));
+            if (digit < 0) return null;
+            // at most 19 decimal digits, so an overflow always turns negative
+            if (decimal && (value = value * 10 + digit) < 0) return null;
+        }
+        return type;
+    }
+
+    /**
+     * Finds the type whose prefix this identifier starts with
+     *
+     * @param id the identifier to check
+     * @return the matching {@link IdentifierType} or <code>null</code>
+     * if there's none
+     */
+    private static IdentifierType prefixType(CharSequence id) {
+        for (IdentifierType type : TYPES) {
+            String prefix = type.getPrefix();
+            int length = prefix.length();
+            if (id.length() <= length || id.charAt(length) != ':') continue;
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++)
+                matches = Character.toLowerCase(id.charAt(i)) == prefix.charAt(i);
+            if (matches) return type;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lowercase form of this identifier, which is the same
+     * instance if it's already in lowercase
+     *
+     * @param id the valid identifier
+     * @return the canonical text
+     */
+    private static String canonical(String id) {
+        for (int i = 0; i < id.length(); i++)
+            if (Character.isUpperCase(id.charAt(i))) return id.toLowerCase(Locale.ROOT);
+        return id;
+    }
+
+    public IdentifierType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the numeric value of this identifier
+     *
+     * @return the value or <code>0</code> if the type's values don't
+     * fit into a <code>long</code>
+     * @see IdentifierType#isPacked()
+     */
+    public long getValue() {
+        return value;
+    }
+
+    public int getDigits() {
+        return digits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlayerIdentifier)) return false;
+        PlayerIdentifier that = (PlayerIdentifier) o;
+        if (type != that.type) return false;
+        if (type.isPacked()) return value == that.value && digits == that.digits;
+        return text.equals(that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        if (!type.isPacked()) return text.hashCode();
+        return 31 * (31 * type.ordinal() + digits) + Long.hashCode(value);
+    }
+
+    /**
+     * Returns the canonical text of this identifier, as stored in the
+     * game database
+     *
+     * @return the identifier
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
@@ -0,0 +1,488 @@
+package com.redcreator37.WhitelistBot.DataModels;
+
+import com.redcreator37.WhitelistBot.Database.GameHandling.ConnectionPool;
+import com.redcreator37.WhitelistBot.Database.GameHandling.FiveMDb;
+import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
+import com.redcreator37.WhitelistBot.Settings;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * The connection pool and the whitelist cache of a single shared game
+ * database, which are used by all guilds registered with it.
+ * <p>
+ * The instances are kept in a registry keyed by the database server,
+ * database name and username, so guilds pointing at the same database
+ * share one pool and one cache, and a change made from one guild is
+ * seen by the others right away. The credentials have to match as well,
+ * so a guild can't reach a database through a pool opened by another
+ * guild without knowing its password. Each guild holds a reference to
+ * the instance, which is closed once the last guild releases it.
+ */
+public class SharedWhitelist {
+
+    /**
+     * All open instances, keyed by their targets
+     */
+    private static final Map<List<String>, SharedWhitelist> targets = new HashMap<>();
+
+    /**
+     * Whether the whitelist caches are kept in the memory-efficient
+     * {@link CompactWhitelist} sets
+     */
+    private static final boolean compactWhitelists = Settings.getBoolean("whitelist.compact", false);
+
+    /**
+     * The key of this instance in the registry
+     */
+    private final List<String> target;
+
+    /**
+     * The connection information used to open the pool
+     */
+    private final SharedDbProvider provider;
+
+    /**
+     * The number of guilds holding this instance, guarded by the
+     * registry's lock
+     */
+    private int references = 0;
+
+    /**
+     * The pool of connections to the shared database or
+     * <code>null</code> if it isn't open
+     */
+    private volatile ConnectionPool pool;
+
+    /**
+     * The shared MySQL database with all game data
+     */
+    private volatile FiveMDb fiveMDb;
+
+    /**
+     * The set of all whitelisted players in this database, in the order
+     * in which they were loaded or added
+     */
+    private final Set<WhitelistedPlayer> whitelisted = compactWhitelists
+            ? new CompactWhitelist() : new LinkedHashSet<>();
+
+    /**
+     * The identifiers of the cached players in alphabetical order, which
+     * the whitelist pages are read from. Guarded by the whitelist
+     * cache's lock. It's <code>null</code> with the compact caches, as
+     * a second copy of every identifier would take up more memory than
+     * they save, so their pages are queried from the database instead.
+     */
+    private NavigableSet<String> sorted = compactWhitelists ? null : new TreeSet<>();
+
+    /**
+     * The time when the whitelist cache was last loaded from the shared
+     * database or <code>null</code> if it hasn't been loaded yet
+     */
+    private volatile Instant lastRefresh;
+
+    /**
+     * The players whitelisted (<code>true</code>) or removed
+     * (<code>false</code>) while a refresh is loading the whitelist, or
+     * <code>null</code> if no refresh is running. Guarded by the
+     * whitelist cache's lock.
+     */
+    private Map<WhitelistedPlayer, Boolean> changedDuringRefresh;
+
+    /**
+     * Allows only one refresh to run at a time
+     */
+    private final Object refreshLock = new Object();
+
+    /**
+     * Constructs a new SharedWhitelist instance
+     *
+     * @param target   the key of this instance in the registry
+     * @param provider the connection information of the database
+     */
+    private SharedWhitelist(List<String> target, SharedDbProvider provider) {
+        this.target = target;
+        this.provider = provider;
+    }
+
+    /**
+     * Returns the instance for the database of this provider, opening
+     * its pool if no other guild uses it yet. Every acquired instance
+     * must be released with {@link SharedWhitelist#release()}.
+     *
+     * @param provider the connection information of the database
+     * @param load     whether to load the whitelist cache right away if
+     *                 it isn't loaded yet, instead of leaving it to the
+     *                 background refreshes
+     * @return the connected {@link SharedWhitelist}
+     * @throws SQLException if the database couldn't be connected
+     */
+    public static SharedWhitelist acquire(SharedDbProvider provider, boolean load) throws SQLException {
+        List<String> target = Arrays.asList(provider.getDbServer().trim().toLowerCase(Locale.ROOT),
+                provider.getDbName(), provider.getUsername(), provider.getPassword());
+        SharedWhitelist shared;
+        synchronized (targets) {
+            shared = targets.computeIfAbsent(target, key -> new SharedWhitelist(key, provider));
+            shared.references++;
+        }
+        try {
+            shared.connect(load);
+        } catch (SQLException | RuntimeException e) {
+            shared.release();
+            throw e;
+        }
+        return shared;
+    }
+
+    /**
+     * Returns all open instances, each of which may be used by several
+     * guilds
+     *
+     * @return a copy of the open instances
+     */
+    public static List<SharedWhitelist> snapshot() {
+        synchronized (targets) {
+            return new ArrayList<>(targets.values());
+        }
+    }
+
+    /**
+     * Opens the pool and loads the whitelist cache, unless that's
+     * already been done
+     *
+     * @param load whether to load the whitelist cache
+     * @throws SQLException on errors
+     */
+    private synchronized void connect(boolean load) throws SQLException {
+        if (fiveMDb == null) {
+            ConnectionPool opened = provider.connect();
+            try {
+                FiveMDb db = new FiveMDb(opened);
+                if (load) refresh(db);
+                pool = opened;
+                fiveMDb = db;
+            } catch (SQLException | RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+        } else if (load && lastRefresh == null) refresh(fiveMDb);
+    }
+
+    /**
+     * Gives up the reference of a guild to this instance and closes the
+     * pool if no other guild uses it
+     */
+    public void release() {
+        synchronized (targets) {
+            if (--references > 0) return;
+            targets.remove(target, this);
+        }
+        close();
+    }
+
+    /**
+     * Closes the pool of this instance, if it's open
+     */
+    private synchronized void close() {
+        if (pool != null) pool.close();
+        pool = null;
+        fiveMDb = null;
+    }
+
+    /**
+     * Reloads the whitelist cache from the shared game database. Only
+     * the differences are applied, so players already cached keep
+     * their position.
+     *
+     * @throws SQLException on errors
+     */
+    public void refresh() throws SQLException {
+        refresh(database());
+    }
+
+    /**
+     * Reloads the whitelist cache from this database. The changes made
+     * through the bot while the whitelist is being loaded are applied
+     * on top of it, as the loaded whitelist may not include them.
+     *
+     * @param db the {@link FiveMDb} to load the whitelist from
+     * @throws SQLException on errors
+     */
+    private void refresh(FiveMDb db) throws SQLException {
+        synchronized (refreshLock) {
+            Map<WhitelistedPlayer, Boolean> changes = new HashMap<>();
+            synchronized (whitelisted) {
+                changedDuringRefresh = changes;
+            }
+            Set<WhitelistedPlayer> current;
+            NavigableSet<String> identifiers = compactWhitelists ? null : new TreeSet<>();
+            try {
+                current = db.getWhitelistedPlayers();
+                if (identifiers != null)
+                    for (WhitelistedPlayer player : current) identifiers.add(player.getIdentifier());
+            } catch (SQLException | RuntimeException e) {
+                synchronized (whitelisted) {
+                    changedDuringRefresh = null;
+                }
+                throw e;
+            }
+            synchronized (whitelisted) {
+                changedDuringRefresh = null;
+                changes.forEach((player, added) -> {
+                    if (added) current.add(player);
+                    else current.remove(player);
+                    if (identifiers == null) return;
+                    if (added) identifiers.add(player.getIdentifier());
+                    else identifiers.remove(player.getIdentifier());
+                });
+                whitelisted.retainAll(current);
+                whitelisted.addAll(current);
+                sorted = identifiers;
+            }
+            lastRefresh = Instant.now();
+        }
+    }
+
+    /**
+     * Returns the shared database, if it's still open
+     *
+     * @return the {@link FiveMDb}
+     * @throws SQLException if the pool has been closed
+     */
+    private FiveMDb database() throws SQLException {
+        FiveMDb db = fiveMDb;
+        if (db == null) throw new SQLException(lc("db-connect-could-not-be-established"));
+        return db;
+    }
+
+    /**
+     * Applies a change made in the shared database to the whitelist
+     * cache, and records it for the refresh which is loading the
+     * whitelist, if any
+     *
+     * @param players the changed players
+     * @param added   whether the players were whitelisted or removed
+     */
+    private void cached(Collection<WhitelistedPlayer> players, boolean added) {
+        synchronized (whitelisted) {
+            for (WhitelistedPlayer player : players) {
+                if (added) whitelisted.add(player);
+                else whitelisted.remove(player);
+                if (sorted == null) continue;
+                if (added) sorted.add(player.getIdentifier());
+                else sorted.remove(player.getIdentifier());
+            }
+            if (changedDuringRefresh != null)
+                for (WhitelistedPlayer player : players) changedDuringRefresh.put(player, added);
+        }
+    }
+
+    /**
+     * Whitelists the player with this SteamID
+     *
+     * @param playerId the SteamID of the player to whitelist
+     * @return an empty {@link Optional} on success or the error
+     * message
+     */
+    public Optional<String> whitelistPlayer(String playerId) {
+        WhitelistedPlayer player = new WhitelistedPlayer(playerId);
+        if (isWhitelisted(playerId)) return Optional.of(lc("player-already-whitelisted"));
+        try {
+            // another guild or a refresh may have added the player since the check
+            boolean inserted = database().whitelistPlayer(player);
+            cached(Collections.singletonList(player), true);
+            if (!inserted) return Optional.of(lc("player-already-whitelisted"));
+        } catch (SQLException e) {
+            return Optional.of(e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Removes the player with this SteamID from the whitelist
+     *
+     * @param playerId the SteamID of the player to un-whitelist
+     * @return an empty {@link Optional} on success or the error
+     * message
+     */
+    public Optional<String> unlistPlayer(String playerId) {
+        WhitelistedPlayer player = new WhitelistedPlayer(playerId);
+        try {
+            database().removePlayer(player);
+            cached(Collections.singletonList(player), false);
+        } catch (SQLException e) {
+            return Optional.of(e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whitelists the players with these identifiers in a single
+     * transaction
+     *
+     * @param playerIds the identifiers of the players to whitelist
+     * @return the {@link BulkResult}, in which players which are
+     * already whitelisted are reported as unchanged
+     */
+    public BulkResult whitelistPlayers(Collection<String> playerIds) {
+        BulkResult result = new BulkResult();
+        List<WhitelistedPlayer> pending = new ArrayList<>();
+        Set<WhitelistedPlayer> seen = new HashSet<>();
+        for (String id : playerIds) {
+            WhitelistedPlayer player = new WhitelistedPlayer(id);
+            if (!seen.add(player) || isWhitelisted(id)) result.addUnchanged(id);
+            else pending.add(player);
+        }
+        if (pending.isEmpty()) return result;
+        try {
+            Set<WhitelistedPlayer> inserted = database().whitelistPlayers(pending);
+            cached(pending, true);
+            pending.forEach(player -> {
+                if (inserted.contains(player)) result.addSucceeded(player.getIdentifier());
+                else result.addUnchanged(player.getIdentifier());
+            });
+        } catch (SQLException e) {
+            pending.forEach(player -> result.addFailed(player.getIdentifier(), e.getMessage()));
+        }
+        return result;
+    }
+
+    /**
+     * Removes the players with these identifiers from the whitelist in
+     * a single transaction
+     *
+     * @param playerIds the identifiers of the players to un-whitelist
+     * @return the {@link BulkResult}, in which players which weren't
+     * whitelisted are reported as unchanged
+     */
+    public BulkResult unlistPlayers(Collection<String> playerIds) {
+        BulkResult result = new BulkResult();
+        List<WhitelistedPlayer> pending = new ArrayList<>();
+        Set<WhitelistedPlayer> seen = new HashSet<>();
+        for (String id : playerIds) {
+            WhitelistedPlayer player = new WhitelistedPlayer(id);
+            if (!seen.add(player)) result.addUnchanged(id);
+            else pending.add(player);
+        }
+        if (pending.isEmpty()) return result;
+        try {
+            Set<WhitelistedPlayer> removed = database().removePlayers(pending);
+            cached(pending, false);
+            pending.forEach(player -> {
+                if (removed.contains(player)) result.addSucceeded(player.getIdentifier());
+                else result.addUnchanged(player.getIdentifier());
+            });
+        } catch (SQLException e) {
+            pending.forEach(player -> result.addFailed(player.getIdentifier(), e.getMessage()));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the player with this identifier is currently
+     * whitelisted
+     *
+     * @param playerId the identifier of the player
+     * @return <code>true</code> if the player is whitelisted
+     */
+    public boolean isWhitelisted(String playerId) {
+        synchronized (whitelisted) {
+            return whitelisted.contains(new WhitelistedPlayer(playerId));
+        }
+    }
+
+    /**
+     * Writes the identifiers of all players whitelisted in the shared
+     * database into this {@link Writer}, one per line in alphabetical
+     * order
+     *
+     * @param out the {@link Writer} to write into
+     * @return the number of written identifiers
+     * @throws SQLException if the database couldn't be queried
+     * @throws IOException  on write errors
+     */
+    public int exportWhitelist(Writer out) throws SQLException, IOException {
+        return database().exportWhitelist(out);
+    }
+
+    /**
+     * Returns one page of the whitelisted players' identifiers, in
+     * alphabetical order. The page is selected from the whitelist cache
+     * if it's loaded and isn't compact, otherwise it's queried from the
+     * shared database.
+     *
+     * @param after the identifier after which the page starts, or an
+     *              empty string for the first page
+     * @param limit the maximum number of identifiers to return
+     * @return the {@link List} of identifiers
+     * @throws SQLException if the database couldn't be queried
+     */
+    public List<String> getWhitelistPage(String after, int limit) throws SQLException {
+        if (compactWhitelists || lastRefresh == null) return database().getWhitelistedPage(after, limit);
+        List<String> identifiers = new ArrayList<>(limit);
+        synchronized (whitelisted) {
+            for (String id : sorted.tailSet(after, false)) {
+                if (identifiers.size() >= limit) break;
+                identifiers.add(id);
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * Returns a copy of the whitelisted players, made while no change
+     * is being applied to the cache
+     *
+     * @return the {@link Set} of whitelisted players
+     */
+    public Set<WhitelistedPlayer> getWhitelisted() {
+        synchronized (whitelisted) {
+            return new LinkedHashSet<>(whitelisted);
+        }
+    }
+
+    /**
+     * Returns the number of whitelisted players, without copying them
+     *
+     * @return the number of cached players
+     */
+    public int getWhitelistedCount() {
+        synchronized (whitelisted) {
+            return whitelisted.size();
+        }
+    }
+
+    /**
+     * Returns the pool of connections to this database
+     *
+     * @return the {@link ConnectionPool} or an empty {@link Optional}
+     * if it has been closed
+     */
+    public Optional<ConnectionPool> getPool() {
+        return Optional.ofNullable(pool);
+    }
+
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
+}
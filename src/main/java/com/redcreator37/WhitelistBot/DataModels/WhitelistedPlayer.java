@@ -1,6 +1,7 @@
 package com.redcreator37.WhitelistBot.DataModels;
 
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Represents a whitelisted player in the game database
@@ -8,34 +9,63 @@ import java.util.Objects;
 public class WhitelistedPlayer {
 
     /**
-     * The identifier of the player (ie. their SteamID)
+     * The identifier of the player (ie. their SteamID), in its
+     * canonical form if it's valid
      */
     private final String identifier;
 
+    /**
+     * The parsed identifier or <code>null</code> if the identifier
+     * isn't in a supported format
+     */
+    private final PlayerIdentifier parsed;
+
     /**
      * Constructs a new WhitelistedPlayer instance
      *
      * @param identifier the identifier of the player (ie. their SteamID)
      */
     public WhitelistedPlayer(String identifier) {
-        this.identifier = identifier;
+        this.parsed = PlayerIdentifier.parse(identifier);
+        this.identifier = parsed != null ? parsed.toString() : identifier;
+    }
+
+    /**
+     * Constructs a new WhitelistedPlayer instance
+     *
+     * @param identifier the parsed identifier of the player
+     */
+    public WhitelistedPlayer(PlayerIdentifier identifier) {
+        this.parsed = identifier;
+        this.identifier = identifier.toString();
     }
 
     public String getIdentifier() {
         return identifier;
     }
 
+    /**
+     * Returns the parsed identifier of this player
+     *
+     * @return the {@link PlayerIdentifier} or an empty {@link Optional}
+     * if the identifier isn't in a supported format
+     */
+    public Optional<PlayerIdentifier> getParsed() {
+        return Optional.ofNullable(parsed);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof WhitelistedPlayer)) return false;
         WhitelistedPlayer that = (WhitelistedPlayer) o;
+        if (parsed != null || that.parsed != null) return Objects.equals(parsed, that.parsed);
         return identifier.equals(that.identifier);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(identifier);
+        return parsed != null ? parsed.hashCode() : identifier.hashCode();
     }
 
 }
@@ -0,0 +1,136 @@
+package com.redcreator37.WhitelistBot.Database.BotHandling;
+
+import com.redcreator37.WhitelistBot.DataModels.AuditEntry;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Histogram;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
+import discord4j.common.util.Snowflake;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and appends the entries of the whitelist audit log. The entries
+ * are never changed or removed once written.
+ * <p>
+ * The history is read newest first, one page at a time. Each page
+ * starts right after the time and the ID of the last entry of the
+ * previous page, so the pages are read from the indexes without
+ * skipping over the earlier ones.
+ */
+public class AuditDb {
+
+    /**
+     * The columns of the audit log, in the order read by
+     * {@link #readEntry(ResultSet)}
+     */
+    private static final String COLUMNS = "id, guild_id, actor_id, action, identifier, created";
+
+    /**
+     * Reads a page of a guild's history
+     */
+    private static final String GUILD_HISTORY = "SELECT " + COLUMNS + " FROM audit_log"
+            + " WHERE guild_id = ? AND created >= ? AND (created, id) < (?, ?)"
+            + " ORDER BY created DESC, id DESC LIMIT ?";
+
+    /**
+     * Reads a page of a single player's history within a guild
+     */
+    private static final String PLAYER_HISTORY = "SELECT " + COLUMNS + " FROM audit_log"
+            + " WHERE guild_id = ? AND identifier = ? AND created >= ? AND (created, id) < (?, ?)"
+            + " ORDER BY created DESC, id DESC LIMIT ?";
+
+    /**
+     * The cached statements of the SQLite database connection to use
+     * for all database-related operations
+     */
+    private final StatementCache statements;
+
+    /**
+     * Constructs a new AuditDb instance
+     *
+     * @param statements the statement cache of the SQLite database
+     *                   connection to use
+     */
+    public AuditDb(StatementCache statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Appends these entries to the audit log as a single batch. The
+     * caller is responsible for the transaction around it.
+     *
+     * @param entries the {@link AuditEntry entries} to append, whose
+     *                IDs are ignored
+     * @throws SQLException on errors
+     */
+    public void addEntries(List<AuditEntry> entries) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("audit.add_entries")) {
+            statements.execute("INSERT INTO audit_log(guild_id, actor_id, action, identifier, created)"
+                    + " VALUES(?, ?, ?, ?, ?)", st -> {
+                for (AuditEntry entry : entries) {
+                    st.setLong(1, entry.getGuildId().asLong());
+                    st.setLong(2, entry.getActorId().asLong());
+                    st.setString(3, entry.getAction().name());
+                    st.setString(4, entry.getIdentifier());
+                    st.setLong(5, entry.getCreated().toEpochMilli());
+                    st.addBatch();
+                }
+                return st.executeBatch();
+            });
+        }
+    }
+
+    /**
+     * Returns one page of a guild's history, newest first
+     *
+     * @param guildId    the snowflake of the guild
+     * @param identifier the identifier of the player whose entries to
+     *                   return or <code>null</code> to return all
+     * @param from       the earliest time of the returned entries
+     * @param before     the time of the last entry on the previous
+     *                   page, or the end of the time range for the
+     *                   first page
+     * @param beforeId   the ID of the last entry on the previous page,
+     *                   or <code>0</code> for the first page
+     * @param limit      the maximum number of returned entries
+     * @return the {@link List} of entries
+     * @throws SQLException on errors
+     */
+    public List<AuditEntry> getHistory(Snowflake guildId, String identifier, Instant from,
+                                       Instant before, long beforeId, int limit) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("audit.get_history")) {
+            return statements.execute(identifier == null ? GUILD_HISTORY : PLAYER_HISTORY, st -> {
+                int i = 1;
+                st.setLong(i++, guildId.asLong());
+                if (identifier != null) st.setString(i++, identifier);
+                st.setLong(i++, from.toEpochMilli());
+                st.setLong(i++, before.toEpochMilli());
+                st.setLong(i++, beforeId);
+                st.setInt(i, limit);
+                List<AuditEntry> entries = new ArrayList<>(limit);
+                try (ResultSet set = st.executeQuery()) {
+                    while (set.next()) entries.add(readEntry(set));
+                }
+                return entries;
+            });
+        }
+    }
+
+    /**
+     * Reads the entry at the current row of this {@link ResultSet}
+     *
+     * @param set the {@link ResultSet} to read from
+     * @return the {@link AuditEntry}
+     * @throws SQLException on errors
+     */
+    private static AuditEntry readEntry(ResultSet set) throws SQLException {
+        return new AuditEntry(set.getLong(1), Snowflake.of(set.getLong(2)), Snowflake.of(set.getLong(3)),
+                AuditEntry.Action.valueOf(set.getString(4)), set.getString(5),
+                Instant.ofEpochMilli(set.getLong(6)));
+    }
+
+}
@@ -1,10 +1,11 @@
 package com.redcreator37.WhitelistBot.Database.BotHandling;
 
 import com.redcreator37.WhitelistBot.DataModels.CacheState;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Histogram;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
 import discord4j.common.util.Snowflake;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
@@ -13,18 +14,19 @@ import java.util.HashMap;
 public class CachesDb {
 
     /**
-     * The SQLite database connection to use for all database-related
-     * operations
+     * The cached statements of the SQLite database connection to use
+     * for all database-related operations
      */
-    private final Connection con;
+    private final StatementCache statements;
 
     /**
      * Constructs a new CachesDb instance
      *
-     * @param con connection to the SQLite database to use
+     * @param statements the statement cache of the SQLite database
+     *                   connection to use
      */
-    public CachesDb(Connection con) {
-        this.con = con;
+    public CachesDb(StatementCache statements) {
+        this.statements = statements;
     }
 
     /**
@@ -34,15 +36,19 @@ public class CachesDb {
      * @throws SQLException on errors
      */
     public HashMap<Snowflake, CacheState> getCacheState() throws SQLException {
-        HashMap<Snowflake, CacheState> states = new HashMap<>();
-        ResultSet set = con.createStatement().executeQuery("select * from caches");
-        while (set.next()) {
-            Snowflake s = Snowflake.of(set.getString("guild_id"));
-            Instant i = Instant.parse(set.getString("last_refresh"));
-            states.put(s, new CacheState(s, i));
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("caches.get_cache_state")) {
+            return statements.execute("select * from caches", st -> {
+                HashMap<Snowflake, CacheState> states = new HashMap<>();
+                try (ResultSet set = st.executeQuery()) {
+                    while (set.next()) {
+                        Snowflake s = Snowflake.of(set.getLong("guild_id"));
+                        Instant i = Instant.ofEpochMilli(set.getLong("last_refresh"));
+                        states.put(s, new CacheState(s, i));
+                    }
+                }
+                return states;
+            });
         }
-        set.close();
-        return states;
     }
 
     /**
@@ -55,12 +61,12 @@ public class CachesDb {
      * @see CachesDb#logRefresh(CacheState)
      */
     public void logFirstRefresh(Snowflake guildId) throws SQLException {
-        PreparedStatement st = con.prepareStatement("INSERT INTO" +
-                " caches(guild_id, last_refresh) VALUES(?, ?);");
-        st.closeOnCompletion();
-        st.setString(1, guildId.asString());
-        st.setString(2, Instant.now().toString());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("caches.log_first_refresh")) {
+            statements.update("INSERT INTO caches(guild_id, last_refresh) VALUES(?, ?)", st -> {
+                st.setLong(1, guildId.asLong());
+                st.setLong(2, System.currentTimeMillis());
+            });
+        }
     }
 
     /**
@@ -70,12 +76,12 @@ public class CachesDb {
      * @throws SQLException on errors
      */
     public void logRefresh(CacheState state) throws SQLException {
-        PreparedStatement st = con.prepareStatement("UPDATE caches SET"
-                + " last_refresh = ? WHERE guild_id = ?;");
-        st.closeOnCompletion();
-        st.setString(1, state.getLastRefresh().toString());
-        st.setString(2, state.getGuildId().asString());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("caches.log_refresh")) {
+            statements.update("UPDATE caches SET last_refresh = ? WHERE guild_id = ?", st -> {
+                st.setLong(1, state.getLastRefresh().toEpochMilli());
+                st.setLong(2, state.getGuildId().asLong());
+            });
+        }
     }
 
     /**
@@ -86,10 +92,10 @@ public class CachesDb {
      * @throws SQLException on errors
      */
     public void clearCacheData(Snowflake guildId) throws SQLException {
-        PreparedStatement st = con.prepareStatement("DELETE FROM caches"
-                + " WHERE guild_id = ?;");
-        st.setString(1, guildId.asString());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("caches.clear_cache_data")) {
+            statements.update("DELETE FROM caches WHERE guild_id = ?",
+                    st -> st.setLong(1, guildId.asLong()));
+        }
     }
 
 }
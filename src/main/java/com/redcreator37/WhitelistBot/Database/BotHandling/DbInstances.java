@@ -1,9 +1,11 @@
 package com.redcreator37.WhitelistBot.Database.BotHandling;
 
 import com.redcreator37.WhitelistBot.Database.GameHandling.SharedDbProvider;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Histogram;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
 import discord4j.common.util.Snowflake;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -11,65 +13,110 @@ import java.sql.SQLException;
 public class DbInstances {
 
     /**
-     * The SQLite database connection to use for all database-related
-     * operations
+     * The cached statements of the SQLite database connection to use
+     * for all database-related operations
      */
-    private final Connection con;
+    private final StatementCache statements;
 
     /**
      * Constructs a new DbInstances instance
      *
-     * @param con connection to the SQLite database to use
+     * @param statements the statement cache of the SQLite database
+     *                   connection to use
      */
-    public DbInstances(Connection con) {
-        this.con = con;
+    public DbInstances(StatementCache statements) {
+        this.statements = statements;
     }
 
     public SharedDbProvider getByGuild(Snowflake guildId) throws SQLException {
-        PreparedStatement st = con.prepareStatement("select * from db_instances"
-                + " where guild_id = ?");
-        st.closeOnCompletion();
-        st.setString(1, guildId.asString());
-        ResultSet set = st.executeQuery();
-        if (!set.next()) return null;
-        SharedDbProvider instance = new SharedDbProvider(guildId,
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("db_instances.get_by_guild")) {
+            return statements.execute("select * from db_instances where guild_id = ?", st -> {
+                st.setLong(1, guildId.asLong());
+                try (ResultSet set = st.executeQuery()) {
+                    return set.next() ? readProvider(guildId, set) : null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the provider from the current row of this result set
+     *
+     * @param guildId the snowflake of the guild the provider belongs to
+     * @param set     the {@link ResultSet} holding the provider's
+     *                <code>server</code>, <code>username</code>,
+     *                <code>password</code> and <code>database</code>
+     *                columns
+     * @return the {@link SharedDbProvider}
+     * @throws SQLException on errors
+     */
+    static SharedDbProvider readProvider(Snowflake guildId, ResultSet set) throws SQLException {
+        return new SharedDbProvider(guildId,
                 set.getString("server"),
                 set.getString("username"),
                 set.getString("password"),
                 set.getString("database"));
-        set.close();
-        return instance;
     }
 
     public void registerInstance(SharedDbProvider provider) throws SQLException {
-        PreparedStatement st = con.prepareStatement("insert into db_instances(guild_id,"
-                + "server, username, password, database) values(?, ?, ?, ?, ?);");
-        st.closeOnCompletion();
-        st.setString(1, provider.getGuildId().asString());
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("db_instances.register_instance")) {
+            statements.update("insert into db_instances(guild_id, server, username,"
+                    + " password, database) values(?, ?, ?, ?, ?)", st -> setProvider(st, provider));
+        }
+    }
+
+    public void updateInstance(SharedDbProvider provider) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("db_instances.update_instance")) {
+            statements.update("update db_instances set server = ?, username = ?,"
+                    + " password = ?, database = ? where guild_id = ?", st -> {
+                st.setString(1, provider.getDbServer());
+                st.setString(2, provider.getUsername());
+                st.setString(3, provider.getPassword());
+                st.setString(4, provider.getDbName());
+                st.setLong(5, provider.getGuildId().asLong());
+            });
+        }
+    }
+
+    /**
+     * Inserts the data of this provider or updates it if the guild
+     * already has a registered instance
+     *
+     * @param provider the {@link SharedDbProvider} to save
+     * @throws SQLException on errors
+     */
+    public void saveInstance(SharedDbProvider provider) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("db_instances.save_instance")) {
+            statements.update("insert into db_instances(guild_id, server, username,"
+                    + " password, database) values(?, ?, ?, ?, ?)"
+                    + " on conflict(guild_id) do update set server = excluded.server,"
+                    + " username = excluded.username, password = excluded.password,"
+                    + " database = excluded.database", st -> setProvider(st, provider));
+        }
+    }
+
+    /**
+     * Sets the data of this provider as the statement's first five
+     * parameters, starting with the guild's snowflake
+     *
+     * @param st       the {@link PreparedStatement} to set the
+     *                 parameters of
+     * @param provider the {@link SharedDbProvider} to read the data from
+     * @throws SQLException on errors
+     */
+    private static void setProvider(PreparedStatement st, SharedDbProvider provider) throws SQLException {
+        st.setLong(1, provider.getGuildId().asLong());
         st.setString(2, provider.getDbServer());
         st.setString(3, provider.getUsername());
         st.setString(4, provider.getPassword());
         st.setString(5, provider.getDbName());
-        st.executeUpdate();
-    }
-
-    public void updateInstance(SharedDbProvider provider) throws SQLException {
-        PreparedStatement st = con.prepareStatement("update db_instances set server = ?,"
-                + " username = ?, password = ?, database = ? where guild_id = ?;");
-        st.closeOnCompletion();
-        st.setString(1, provider.getDbServer());
-        st.setString(2, provider.getUsername());
-        st.setString(3, provider.getPassword());
-        st.setString(4, provider.getDbName());
-        st.setString(5, provider.getGuildId().asString());
-        st.executeUpdate();
     }
 
     public void removeInstance(SharedDbProvider provider) throws SQLException {
-        PreparedStatement st = con.prepareStatement("delete from db_instances"
-                + " where guild_id = ?;");
-        st.setString(1, provider.getGuildId().asString());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("db_instances.remove_instance")) {
+            statements.update("delete from db_instances where guild_id = ?",
+                    st -> st.setLong(1, provider.getGuildId().asLong()));
+        }
     }
 
 }
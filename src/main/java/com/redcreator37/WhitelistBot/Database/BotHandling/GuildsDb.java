@@ -1,10 +1,11 @@
 package com.redcreator37.WhitelistBot.Database.BotHandling;
 
 import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Histogram;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
 import discord4j.common.util.Snowflake;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
@@ -13,18 +14,19 @@ import java.util.HashMap;
 public class GuildsDb {
 
     /**
-     * The SQLite database connection to use for all database-related
-     * operations
+     * The cached statements of the SQLite database connection to use
+     * for all database-related operations
      */
-    private final Connection con;
+    private final StatementCache statements;
 
     /**
      * Constructs a new GuildsDb instance
      *
-     * @param con connection to the SQLite database to use
+     * @param statements the statement cache of the SQLite database
+     *                   connection to use
      */
-    public GuildsDb(Connection con) {
-        this.con = con;
+    public GuildsDb(StatementCache statements) {
+        this.statements = statements;
     }
 
     /**
@@ -34,18 +36,23 @@ public class GuildsDb {
      * @throws SQLException on errors
      */
     public HashMap<Snowflake, Guild> getGuilds() throws SQLException {
-        HashMap<Snowflake, Guild> guilds = new HashMap<>();
-        ResultSet set = con.createStatement().executeQuery("select * from guilds");
-        DbInstances dbInstances = new DbInstances(con);
-        while (set.next()) {
-            Snowflake s = Snowflake.of(set.getString("snowflake"));
-            Guild guild = new Guild(s, Instant.parse(set.getString("joined")),
-                    set.getString("admin_role"),
-                    dbInstances.getByGuild(s));
-            guilds.put(s, guild);
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("guilds.get_guilds")) {
+            return statements.execute("select g.snowflake, g.joined, g.admin_role,"
+                    + " d.server, d.username, d.password, d.database from guilds g"
+                    + " left join db_instances d on d.guild_id = g.snowflake", st -> {
+                HashMap<Snowflake, Guild> guilds = new HashMap<>();
+                try (ResultSet set = st.executeQuery()) {
+                    while (set.next()) {
+                        Snowflake s = Snowflake.of(set.getLong("snowflake"));
+                        Guild guild = new Guild(s, Instant.ofEpochMilli(set.getLong("joined")),
+                                set.getString("admin_role"),
+                                set.getString("server") != null ? DbInstances.readProvider(s, set) : null);
+                        guilds.put(s, guild);
+                    }
+                }
+                return guilds;
+            });
         }
-        set.close();
-        return guilds;
     }
 
     /**
@@ -55,13 +62,14 @@ public class GuildsDb {
      * @throws SQLException on errors
      */
     public void addGuild(Guild guild) throws SQLException {
-        PreparedStatement st = con.prepareStatement("INSERT INTO"
-                + " guilds(snowflake, joined, admin_role) VALUES(?, ?, ?)");
-        st.closeOnCompletion();
-        st.setString(1, guild.getSnowflake().asString());
-        st.setString(2, guild.getJoined().toString());
-        st.setString(3, guild.getAdminRole());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("guilds.add_guild")) {
+            statements.update("INSERT INTO guilds(snowflake, joined, admin_role)"
+                    + " VALUES(?, ?, ?)", st -> {
+                st.setLong(1, guild.getSnowflake().asLong());
+                st.setLong(2, guild.getJoined().toEpochMilli());
+                st.setString(3, guild.getAdminRole());
+            });
+        }
     }
 
     /**
@@ -71,11 +79,12 @@ public class GuildsDb {
      * @throws SQLException on errors
      */
     public void updateAdminRole(Guild guild) throws SQLException {
-        PreparedStatement st = con.prepareStatement("UPDATE guilds"
-                + " SET admin_role = ? WHERE snowflake = ?");
-        st.closeOnCompletion();
-        st.setString(1, guild.getAdminRole());
-        st.setString(2, guild.getSnowflake().asString());
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("guilds.update_admin_role")) {
+            statements.update("UPDATE guilds SET admin_role = ? WHERE snowflake = ?", st -> {
+                st.setString(1, guild.getAdminRole());
+                st.setLong(2, guild.getSnowflake().asLong());
+            });
+        }
     }
 
     /**
@@ -85,10 +94,10 @@ public class GuildsDb {
      * @throws SQLException on errors
      */
     public void removeGuild(Guild guild) throws SQLException {
-        PreparedStatement st = con.prepareStatement("DELETE FROM guilds"
-                + " WHERE snowflake = ?;");
-        st.setString(1, guild.getSnowflake().asString());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("guilds.remove_guild")) {
+            statements.update("DELETE FROM guilds WHERE snowflake = ?",
+                    st -> st.setLong(1, guild.getSnowflake().asLong()));
+        }
     }
 
 }
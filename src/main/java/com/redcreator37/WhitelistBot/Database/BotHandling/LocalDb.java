@@ -4,9 +4,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Common database routines for the local datastore
@@ -14,35 +16,64 @@ import java.sql.SQLException;
 public final class LocalDb {
 
     /**
-     * Attempts to connect to the specified database
+     * Non-instantiable
+     */
+    private LocalDb() {
+    }
+
+    /**
+     * Attempts to connect to the specified database, using the
+     * performance profile from the bot's settings
      *
      * @param database database path
      * @return a valid JDBC database connection
      * @throws SQLException on errors
      */
     public static Connection connect(String database) throws SQLException {
+        return connect(database, SqliteProfile.fromSettings());
+    }
+
+    /**
+     * Attempts to connect to the specified database
+     *
+     * @param database database path
+     * @param profile  the {@link SqliteProfile} to apply to the
+     *                 connection
+     * @return a valid JDBC database connection
+     * @throws SQLException on errors
+     */
+    public static Connection connect(String database, SqliteProfile profile) throws SQLException {
         Connection con = DriverManager.getConnection("jdbc:sqlite:" + database);
         con.setAutoCommit(true);
+        try {
+            profile.apply(con);
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
         return con;
     }
 
     /**
-     * Creates possibly nonexistent database tables
+     * Runs all statements in this SQL script. The statements must be
+     * separated by lines starting with <code>--</code>.
      *
      * @param con       database connection
-     * @param sqlStream the stream to the file which contains SQL
-     *                  queries to execute to generate the tables
+     * @param sqlStream the stream to the script to run
      * @throws SQLException on errors
+     * @throws IOException  if the script couldn't be read
      */
-    public void createDatabaseTables(Connection con, InputStream sqlStream) throws SQLException, IOException {
-        BufferedReader br = new BufferedReader(new InputStreamReader(sqlStream));
-        StringBuilder builder = new StringBuilder();
-        String line;
-        while ((line = br.readLine()) != null)
-            if (line.startsWith("--")) {
-                con.prepareStatement(builder.toString()).execute();
-                builder = new StringBuilder();
-            } else builder.append(line).append(" ");
+    public static void executeScript(Connection con, InputStream sqlStream) throws SQLException, IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(sqlStream, StandardCharsets.UTF_8));
+             Statement st = con.createStatement()) {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = br.readLine()) != null)
+                if (line.startsWith("--")) {
+                    if (builder.toString().trim().length() > 0) st.execute(builder.toString());
+                    builder = new StringBuilder();
+                } else builder.append(line).append(" ");
+        }
     }
 
 }
@@ -0,0 +1,111 @@
+package com.redcreator37.WhitelistBot.Database.BotHandling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Brings the schema of the local database up to date.
+ * <p>
+ * The schema version is kept in SQLite's <code>user_version</code>
+ * header field. Each migration is a script in the <code>migrations</code>
+ * resource directory, and version <code>n</code> means that the first
+ * <code>n</code> scripts have been applied. Every script runs in its own
+ * transaction along with the version update.
+ */
+public final class Migrations {
+
+    /**
+     * The migration scripts, in the order in which they're applied.
+     * New scripts must only ever be appended.
+     */
+    private static final String[] SCRIPTS = {
+            "001-create-tables.sql",
+            "002-integer-snowflakes.sql",
+            "003-audit-log.sql",
+    };
+
+    /**
+     * Non-instantiable
+     */
+    private Migrations() {
+    }
+
+    /**
+     * Returns the schema version this build of the bot expects
+     *
+     * @return the latest schema version
+     */
+    public static int getLatestVersion() {
+        return SCRIPTS.length;
+    }
+
+    /**
+     * Returns the current schema version of the database
+     *
+     * @param con the connection to the database
+     * @return the schema version
+     * @throws SQLException on errors
+     */
+    public static int getVersion(Connection con) throws SQLException {
+        try (Statement st = con.createStatement(); ResultSet set = st.executeQuery("PRAGMA user_version")) {
+            return set.next() ? set.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies all migrations which haven't been applied to the database
+     * yet
+     *
+     * @param con the connection to the database
+     * @return the number of applied migrations
+     * @throws SQLException if a migration failed, in which case its
+     *                      changes are rolled back, or if the database
+     *                      is newer than this build of the bot
+     * @throws IOException  if a migration script couldn't be read
+     */
+    public static int migrate(Connection con) throws SQLException, IOException {
+        int version = getVersion(con);
+        if (version > SCRIPTS.length)
+            throw new SQLException(MessageFormat.format(lc("db-version-too-new"), version, SCRIPTS.length));
+        for (int i = version; i < SCRIPTS.length; i++) {
+            apply(con, i + 1, SCRIPTS[i]);
+            System.out.println(MessageFormat.format(lc("migrated-db"), i + 1, SCRIPTS[i]));
+        }
+        return SCRIPTS.length - version;
+    }
+
+    /**
+     * Runs this migration script and sets the schema version in a
+     * single transaction
+     *
+     * @param con     the connection to the database
+     * @param version the schema version after the migration
+     * @param script  the name of the script to run
+     * @throws SQLException on errors
+     * @throws IOException  if the script couldn't be read
+     */
+    private static void apply(Connection con, int version, String script) throws SQLException, IOException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (InputStream sql = Migrations.class.getClassLoader().getResourceAsStream("migrations/" + script);
+             Statement st = con.createStatement()) {
+            if (sql == null) throw new IOException(script);
+            LocalDb.executeScript(con, sql);
+            st.execute("PRAGMA user_version = " + version);
+            con.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+}
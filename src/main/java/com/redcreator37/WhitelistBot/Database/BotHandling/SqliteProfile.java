@@ -0,0 +1,140 @@
+package com.redcreator37.WhitelistBot.Database.BotHandling;
+
+import com.redcreator37.WhitelistBot.Settings;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Holds the performance-related settings applied to each connection to
+ * the local SQLite database
+ */
+public class SqliteProfile {
+
+    /**
+     * The journal modes accepted by SQLite
+     */
+    private static final List<String> JOURNAL_MODES = Arrays
+            .asList("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+
+    /**
+     * The synchronization levels accepted by SQLite
+     */
+    private static final List<String> SYNCHRONOUS = Arrays
+            .asList("OFF", "NORMAL", "FULL", "EXTRA");
+
+    /**
+     * The settings SQLite uses when none are applied
+     */
+    public static final SqliteProfile SQLITE_DEFAULTS = new SqliteProfile("DELETE", "FULL", 0, -2000, 0);
+
+    /**
+     * The journal mode (ex. <code>WAL</code>)
+     */
+    private final String journalMode;
+
+    /**
+     * How often SQLite waits for the data to reach the disk
+     * (ex. <code>NORMAL</code>)
+     */
+    private final String synchronous;
+
+    /**
+     * The maximum number of bytes of the database file mapped into
+     * the memory
+     */
+    private final long mmapSize;
+
+    /**
+     * The size of the page cache, in pages if positive or in KiB if
+     * negative
+     */
+    private final int cacheSize;
+
+    /**
+     * How long to wait for a lock held by another connection, in
+     * milliseconds
+     */
+    private final int busyTimeout;
+
+    /**
+     * Constructs a new SqliteProfile instance
+     *
+     * @param journalMode the journal mode (ex. <code>WAL</code>)
+     * @param synchronous how often SQLite waits for the data to reach
+     *                    the disk (ex. <code>NORMAL</code>)
+     * @param mmapSize    the maximum number of bytes of the database
+     *                    file mapped into the memory
+     * @param cacheSize   the size of the page cache, in pages if
+     *                    positive or in KiB if negative
+     * @param busyTimeout how long to wait for a lock held by another
+     *                    connection, in milliseconds
+     */
+    public SqliteProfile(String journalMode, String synchronous, long mmapSize, int cacheSize, int busyTimeout) {
+        this.journalMode = journalMode.toUpperCase(Locale.ROOT);
+        this.synchronous = synchronous.toUpperCase(Locale.ROOT);
+        if (!JOURNAL_MODES.contains(this.journalMode))
+            throw new IllegalArgumentException("Invalid journal mode: " + journalMode);
+        if (!SYNCHRONOUS.contains(this.synchronous))
+            throw new IllegalArgumentException("Invalid synchronous level: " + synchronous);
+        if (mmapSize < 0 || busyTimeout < 0)
+            throw new IllegalArgumentException("Invalid mmap size or busy timeout");
+        this.mmapSize = mmapSize;
+        this.cacheSize = cacheSize;
+        this.busyTimeout = busyTimeout;
+    }
+
+    /**
+     * Returns the profile specified in the bot's {@link Settings}
+     *
+     * @return the configured {@link SqliteProfile}
+     */
+    public static SqliteProfile fromSettings() {
+        return new SqliteProfile(Settings.getString("sqlite.journal-mode", "WAL"),
+                Settings.getString("sqlite.synchronous", "NORMAL"),
+                Settings.getLong("sqlite.mmap-size", 268435456),
+                Settings.getInt("sqlite.cache-size", -16384),
+                Settings.getInt("sqlite.busy-timeout-ms", 5000));
+    }
+
+    /**
+     * Applies this profile to the connection
+     *
+     * @param con the connection to the SQLite database
+     * @throws SQLException on errors
+     */
+    public void apply(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("PRAGMA journal_mode = " + journalMode);
+            st.execute("PRAGMA synchronous = " + synchronous);
+            st.execute("PRAGMA mmap_size = " + mmapSize);
+            st.execute("PRAGMA cache_size = " + cacheSize);
+            st.execute("PRAGMA busy_timeout = " + busyTimeout);
+        }
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.redcreator37.WhitelistBot.Database;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs blocking JDBC calls on a bounded pool of threads dedicated to
+ * database access, keeping them off the gateway event loop
+ */
+public final class DatabaseScheduler {
+
+    /**
+     * The maximum number of threads running database calls at once
+     */
+    private static final int MAX_THREADS = 32;
+
+    /**
+     * The maximum number of database calls waiting for a free thread
+     */
+    private static final int MAX_QUEUED = 4096;
+
+    /**
+     * The {@link Scheduler} all database calls are submitted to
+     */
+    private static final Scheduler scheduler = Schedulers
+            .newBoundedElastic(MAX_THREADS, MAX_QUEUED, "database");
+
+    /**
+     * Non-instantiable
+     */
+    private DatabaseScheduler() {
+    }
+
+    /**
+     * Represents a blocking database operation without a result
+     */
+    @FunctionalInterface
+    public interface DatabaseAction {
+
+        /**
+         * Runs the operation
+         *
+         * @throws SQLException on errors
+         */
+        void run() throws SQLException;
+
+    }
+
+    /**
+     * Wraps this blocking call into a {@link Mono} which runs it on the
+     * database scheduler once subscribed to
+     *
+     * @param call the blocking call to run
+     * @param <T>  the type of the call's result
+     * @return a {@link Mono} emitting the result of the call
+     */
+    public static <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    /**
+     * Wraps this blocking action into a {@link Mono} which runs it on
+     * the database scheduler once subscribed to
+     *
+     * @param action the blocking action to run
+     * @return an empty {@link Mono} completing after the action
+     */
+    public static Mono<Void> run(DatabaseAction action) {
+        return call(() -> {
+            action.run();
+            return true;
+        }).then();
+    }
+
+    /**
+     * Returns the {@link Scheduler} used for database calls
+     *
+     * @return the database {@link Scheduler}
+     */
+    public static Scheduler get() {
+        return scheduler;
+    }
+
+}
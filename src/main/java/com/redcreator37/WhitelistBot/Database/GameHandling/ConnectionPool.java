@@ -0,0 +1,377 @@
+package com.redcreator37.WhitelistBot.Database.GameHandling;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of JDBC connections to a single database.
+ * <p>
+ * Borrowed connections are validated before being handed out and are
+ * returned to the pool by closing them, which makes them usable with
+ * try-with-resources blocks. Connections idle for longer than the
+ * configured timeout are closed in the background, down to the
+ * configured minimum size, and replaced on a separate thread if the
+ * server dropped them.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Runs the idle connection eviction for all pools
+     */
+    private static final ScheduledExecutorService evictor = Executors
+            .newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Opens the replacement connections for all pools, so a slow server
+     * doesn't hold up the eviction of the other pools
+     */
+    private static final ExecutorService refiller = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "pool-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The source of new physical connections
+     */
+    private final DataSource source;
+
+    /**
+     * The configuration of this pool
+     */
+    private final PoolConfig config;
+
+    /**
+     * Limits the number of connections in use at once
+     */
+    private final Semaphore permits;
+
+    /**
+     * The idle connections, most recently used first
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * The number of currently open physical connections
+     */
+    private final AtomicInteger open = new AtomicInteger();
+
+    /**
+     * The scheduled eviction task of this pool
+     */
+    private final ScheduledFuture<?> eviction;
+
+    /**
+     * Whether replacement connections are currently being opened
+     */
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    /**
+     * Whether this pool has been closed
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a new ConnectionPool instance and opens the minimum
+     * number of connections
+     *
+     * @param source the {@link DataSource} to open new connections with
+     * @param config the sizing and timeout configuration
+     * @throws SQLException if the initial connections couldn't be opened
+     */
+    public ConnectionPool(DataSource source, PoolConfig config) throws SQLException {
+        this.source = source;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        try {
+            for (int i = 0; i < config.getMinSize(); i++)
+                idle.offerLast(open());
+        } catch (SQLException e) {
+            idle.forEach(PooledConnection::discard);
+            throw e;
+        }
+        long interval = Math.max(1000, config.getIdleTimeout() / 2);
+        eviction = evictor.scheduleWithFixedDelay(this::evictIdle,
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a validated connection from this pool. The connection
+     * must be closed after use to return it to the pool.
+     *
+     * @return the borrowed {@link Connection}
+     * @throws SQLException if no valid connection could be obtained
+     *                      within the acquisition timeout
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("The connection pool has been closed");
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeout(), TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("Timed out after "
+                        + config.getAcquireTimeout() + " ms waiting for a database connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection");
+        }
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.isUsable()) return pooled.lease();
+                pooled.discard();
+            }
+            return open().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of currently open connections
+     *
+     * @return the number of open connections
+     */
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    /**
+     * Returns the number of connections which are open but not in use
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of connections currently borrowed
+     *
+     * @return the number of connections in use
+     */
+    public int getActiveCount() {
+        return config.getMaxSize() - permits.availablePermits();
+    }
+
+    /**
+     * Closes this pool along with all of its idle connections.
+     * Borrowed connections are closed once they're returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        eviction.cancel(false);
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null)
+            pooled.discard();
+    }
+
+    /**
+     * Opens a new physical connection
+     *
+     * @return the new {@link PooledConnection}
+     * @throws SQLException on errors
+     */
+    private PooledConnection open() throws SQLException {
+        Connection connection = source.getConnection();
+        connection.setAutoCommit(true);
+        open.incrementAndGet();
+        return new PooledConnection(connection);
+    }
+
+    /**
+     * Returns this connection back to the pool or closes it if it can't
+     * be reused anymore
+     *
+     * @param pooled the {@link PooledConnection} to return
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || !pooled.reset()) pooled.discard();
+            else idle.offerFirst(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the connections which have been idle for too long, while
+     * keeping at least the minimum number of connections open
+     */
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - config.getIdleTimeout();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && open.get() > config.getMinSize()) {
+            PooledConnection pooled = it.next();
+            if (pooled.lastUsed < deadline && idle.remove(pooled))
+                pooled.discard();
+        }
+        // refill the pool in case the server dropped connections
+        if (!closed && open.get() < config.getMinSize() && refilling.compareAndSet(false, true))
+            refiller.execute(this::refill);
+    }
+
+    /**
+     * Opens new connections until the minimum number of connections is
+     * open again. The connections opened after this pool was closed are
+     * closed right away.
+     */
+    private void refill() {
+        try {
+            while (!closed && open.get() < config.getMinSize()) {
+                PooledConnection pooled = open();
+                idle.offerLast(pooled);
+                // close() may have drained the idle connections meanwhile
+                if (closed && idle.remove(pooled)) pooled.discard();
+            }
+        } catch (SQLException ignored) {
+            // retried on the next run
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private final class PooledConnection {
+
+        /**
+         * The underlying physical connection
+         */
+        private final Connection connection;
+
+        /**
+         * The time when this connection was last returned to the pool
+         */
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Hands this connection out to a borrower
+         *
+         * @return a {@link Connection} proxy which returns the connection
+         * to the pool when closed
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Lease(this));
+        }
+
+        /**
+         * Checks whether the server still responds on this connection
+         *
+         * @return <code>true</code> if the connection can be used
+         */
+        private boolean isUsable() {
+            try {
+                return connection.isValid(config.getValidationTimeout());
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Restores the default connection state after use
+         *
+         * @return <code>true</code> if the connection can be reused
+         */
+        private boolean reset() {
+            try {
+                if (connection.isClosed()) return false;
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                connection.clearWarnings();
+                lastUsed = System.currentTimeMillis();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Closes the physical connection
+         */
+        private void discard() {
+            open.decrementAndGet();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // the connection is unusable either way
+            }
+        }
+
+    }
+
+    /**
+     * A single borrowing of a {@link PooledConnection}, which forwards
+     * all calls to the physical connection until it's closed
+     */
+    private final class Lease implements InvocationHandler {
+
+        /**
+         * The borrowed connection
+         */
+        private final PooledConnection pooled;
+
+        /**
+         * Whether the connection has already been returned
+         */
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) release(pooled);
+                    return null;
+                case "isClosed":
+                    return returned.get() || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.connection;
+            }
+            if (returned.get())
+                throw new SQLException("The connection has already been returned to the pool");
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
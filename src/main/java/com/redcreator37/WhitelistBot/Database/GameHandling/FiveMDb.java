@@ -1,57 +1,231 @@
 package com.redcreator37.WhitelistBot.Database.GameHandling;
 
 import com.redcreator37.WhitelistBot.DataModels.WhitelistedPlayer;
+import com.redcreator37.WhitelistBot.Metrics.Histogram;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FiveMDb {
 
     /**
-     * The SQLite database connection to use for all database-related
+     * The maximum number of identifiers looked up in a single query
+     */
+    private static final int LOOKUP_SIZE = 500;
+
+    /**
+     * The pool of MySQL connections to use for all database-related
      * operations
      */
-    private final Connection con;
+    private final ConnectionPool pool;
 
     /**
      * Constructs a new FiveMDb instance
      *
-     * @param connection the MySQL connection to use
+     * @param pool the pool of MySQL connections to use
+     */
+    public FiveMDb(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the set of whitelisted players in the database, ordered
+     * by their identifiers
+     *
+     * @return the set of whitelisted players
+     * @throws SQLException on errors
      */
-    public FiveMDb(Connection connection) {
-        this.con = connection;
+    public Set<WhitelistedPlayer> getWhitelistedPlayers() throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.get_whitelisted_players")) {
+            Set<WhitelistedPlayer> players = new LinkedHashSet<>();
+            try (Connection con = pool.borrow(); Statement st = con.createStatement();
+                 ResultSet set = st.executeQuery("select identifier from whitelist order by identifier")) {
+                while (set.next())
+                    players.add(new WhitelistedPlayer(set.getString("identifier")));
+            }
+            return players;
+        }
     }
 
     /**
-     * Returns the list of whitelisted players in the database
+     * Returns one page of the whitelisted players' identifiers, in
+     * alphabetical order
      *
-     * @return the list of whitelisted players
+     * @param after the identifier after which the page starts, or an
+     *              empty string for the first page
+     * @param limit the maximum number of identifiers to return
+     * @return the {@link List} of identifiers
      * @throws SQLException on errors
      */
-    public List<WhitelistedPlayer> getWhitelistedPlayers() throws SQLException {
-        List<WhitelistedPlayer> players = new ArrayList<>();
-        ResultSet set = con.createStatement().executeQuery("select * from whitelist");
-        while (set.next())
-            players.add(new WhitelistedPlayer(set.getString("identifier")));
-        set.close();
-        return players;
+    public List<String> getWhitelistedPage(String after, int limit) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.get_whitelisted_page")) {
+            List<String> identifiers = new ArrayList<>(limit);
+            try (Connection con = pool.borrow(); PreparedStatement st = con.prepareStatement(
+                    "select identifier from whitelist where identifier > ? order by identifier limit ?")) {
+                st.setString(1, after);
+                st.setInt(2, limit);
+                try (ResultSet set = st.executeQuery()) {
+                    while (set.next()) identifiers.add(set.getString("identifier"));
+                }
+            }
+            return identifiers;
+        }
     }
 
     /**
-     * Whitelists this player in the db
+     * Writes the identifiers of all whitelisted players into this
+     * {@link Writer}, one per line in alphabetical order. The rows are
+     * streamed from the server one at a time instead of being read into
+     * memory all at once.
+     *
+     * @param out the {@link Writer} to write into
+     * @return the number of written identifiers
+     * @throws SQLException on database errors
+     * @throws IOException  on write errors
+     */
+    public int exportWhitelist(Writer out) throws SQLException, IOException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.export_whitelist")) {
+            int count = 0;
+            try (Connection con = pool.borrow(); Statement st = con.createStatement(
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                st.setFetchSize(Integer.MIN_VALUE);     // makes the MySQL driver stream the rows
+                try (ResultSet set = st.executeQuery("select identifier from whitelist order by identifier")) {
+                    while (set.next()) {
+                        out.write(set.getString(1));
+                        out.write('\n');
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Whitelists this player in the db, unless it's already whitelisted
      *
      * @param player the player to whitelist
+     * @return <code>true</code> if the player was newly whitelisted
+     * @throws SQLException on errors
+     */
+    public boolean whitelistPlayer(WhitelistedPlayer player) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.whitelist_player")) {
+            try (Connection con = pool.borrow(); PreparedStatement st = con
+                    .prepareStatement("INSERT IGNORE INTO whitelist(identifier) VALUES(?)")) {
+                st.setString(1, player.getIdentifier());
+                return st.executeUpdate() > 0;
+            }
+        }
+    }
+
+    /**
+     * Whitelists these players in the db using a single batched
+     * transaction. Players which are already whitelisted are skipped.
+     *
+     * @param players the players to whitelist
+     * @return the players which were newly whitelisted
+     * @throws SQLException on errors, in which case no player is
+     *                      whitelisted
+     */
+    public Set<WhitelistedPlayer> whitelistPlayers(List<WhitelistedPlayer> players) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.whitelist_players")) {
+            return executeBatch("INSERT IGNORE INTO whitelist(identifier) VALUES(?)", players, false);
+        }
+    }
+
+    /**
+     * Removes these players from the whitelist in the db using a single
+     * batched transaction
+     *
+     * @param players the players to remove
+     * @return the players which were actually removed
+     * @throws SQLException on errors, in which case no player is removed
+     */
+    public Set<WhitelistedPlayer> removePlayers(List<WhitelistedPlayer> players) throws SQLException {
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.remove_players")) {
+            return executeBatch("DELETE FROM whitelist WHERE identifier = ?", players, true);
+        }
+    }
+
+    /**
+     * Runs this statement in a single batched transaction for each of
+     * the players which are (or aren't) whitelisted. The driver rewrites
+     * the batch into as few statements as possible, so the update counts
+     * aren't reported per row. The changed players are found by locking
+     * the whitelisted ones in the same transaction instead.
+     *
+     * @param sql       the statement, taking the player's identifier as
+     *                  its only parameter
+     * @param players   the players to run the statement for
+     * @param whitelist whether to run the statement for the players
+     *                  which are whitelisted, or for the others
+     * @return the players for which the statement was run
+     * @throws SQLException on errors, in which case the transaction is
+     *                      rolled back
+     */
+    private Set<WhitelistedPlayer> executeBatch(String sql, List<WhitelistedPlayer> players,
+                                                boolean whitelist) throws SQLException {
+        Set<WhitelistedPlayer> changed = new LinkedHashSet<>();
+        try (Connection con = pool.borrow()) {
+            con.setAutoCommit(false);
+            try {
+                Set<String> found = lockWhitelisted(con, players);
+                for (WhitelistedPlayer player : players)
+                    if (found.contains(player.getIdentifier()) == whitelist) changed.add(player);
+                if (!changed.isEmpty()) try (PreparedStatement st = con.prepareStatement(sql)) {
+                    for (WhitelistedPlayer player : changed) {
+                        st.setString(1, player.getIdentifier());
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns which of these players are whitelisted and locks their
+     * rows until the end of the transaction
+     *
+     * @param con     the {@link Connection} with the open transaction
+     * @param players the players to look up
+     * @return the canonical identifiers of the whitelisted players
      * @throws SQLException on errors
      */
-    public void whitelistPlayer(WhitelistedPlayer player) throws SQLException {
-        PreparedStatement st = con.prepareStatement("INSERT INTO whitelist(identifier) VALUES(?)");
-        st.closeOnCompletion();
-        st.setString(1, player.getIdentifier());
-        st.executeUpdate();
+    private static Set<String> lockWhitelisted(Connection con, List<WhitelistedPlayer> players) throws SQLException {
+        Set<String> found = new HashSet<>();
+        if (players.isEmpty()) return found;
+        // every lookup takes the same number of parameters, so the statement is prepared once
+        int size = Math.min(players.size(), LOOKUP_SIZE);
+        StringBuilder sql = new StringBuilder("select identifier from whitelist where identifier in (");
+        for (int i = 0; i < size; i++) sql.append(i == 0 ? "?" : ",?");
+        try (PreparedStatement st = con.prepareStatement(sql.append(") for update").toString())) {
+            for (int from = 0; from < players.size(); from += size) {
+                for (int i = 0; i < size; i++)   // the last lookup repeats its last player
+                    st.setString(i + 1, players.get(Math.min(from + i, players.size() - 1)).getIdentifier());
+                try (ResultSet set = st.executeQuery()) {
+                    // MySQL compares case-insensitively, so the stored spelling may differ
+                    while (set.next()) found.add(new WhitelistedPlayer(set.getString(1)).getIdentifier());
+                }
+            }
+        }
+        return found;
     }
 
     /**
@@ -61,10 +235,13 @@ public class FiveMDb {
      * @throws SQLException on errors
      */
     public void removePlayer(WhitelistedPlayer player) throws SQLException {
-        String sql = "DELETE FROM whitelist WHERE identifier = ?;";
-        PreparedStatement st = con.prepareStatement(sql);
-        st.setString(1, player.getIdentifier());
-        st.executeUpdate();
+        try (Histogram.Timer ignored = Metrics.DB_CALLS.time("fivem.remove_player")) {
+            try (Connection con = pool.borrow(); PreparedStatement st = con
+                    .prepareStatement("DELETE FROM whitelist WHERE identifier = ?;")) {
+                st.setString(1, player.getIdentifier());
+                st.executeUpdate();
+            }
+        }
     }
 
 }
@@ -0,0 +1,111 @@
+package com.redcreator37.WhitelistBot.Database.GameHandling;
+
+import com.redcreator37.WhitelistBot.Settings;
+
+/**
+ * Holds the sizing and timeout configuration of a {@link ConnectionPool}
+ */
+public class PoolConfig {
+
+    /**
+     * The number of connections kept open even when idle
+     */
+    private final int minSize;
+
+    /**
+     * The maximum number of connections open at once
+     */
+    private final int maxSize;
+
+    /**
+     * How long to wait for a free connection before failing,
+     * in milliseconds
+     */
+    private final long acquireTimeout;
+
+    /**
+     * How long a connection may stay idle before it's closed,
+     * in milliseconds
+     */
+    private final long idleTimeout;
+
+    /**
+     * How long to wait for a connection to respond when validating
+     * it, in seconds
+     */
+    private final int validationTimeout;
+
+    /**
+     * How long to wait for the server when opening a new connection,
+     * in milliseconds
+     */
+    private final int connectTimeout;
+
+    /**
+     * Constructs a new PoolConfig instance
+     *
+     * @param minSize           the number of connections kept open
+     *                          even when idle
+     * @param maxSize           the maximum number of connections open
+     *                          at once
+     * @param acquireTimeout    how long to wait for a free connection,
+     *                          in milliseconds
+     * @param idleTimeout       how long a connection may stay idle
+     *                          before it's closed, in milliseconds
+     * @param validationTimeout how long to wait for a connection to
+     *                          respond when validating it, in seconds
+     * @param connectTimeout    how long to wait for the server when
+     *                          opening a connection, in milliseconds
+     */
+    public PoolConfig(int minSize, int maxSize, long acquireTimeout, long idleTimeout,
+                      int validationTimeout, int connectTimeout) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize)
+            throw new IllegalArgumentException("Invalid pool size: " + minSize + "-" + maxSize);
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeout = acquireTimeout;
+        this.idleTimeout = idleTimeout;
+        this.validationTimeout = validationTimeout;
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Returns the pool configuration specified in the bot's
+     * {@link Settings}
+     *
+     * @return the configured {@link PoolConfig}
+     */
+    public static PoolConfig fromSettings() {
+        return new PoolConfig(Settings.getInt("pool.min-size", 1),
+                Settings.getInt("pool.max-size", 4),
+                Settings.getLong("pool.acquire-timeout-ms", 5000),
+                Settings.getLong("pool.idle-timeout-ms", 300000),
+                Settings.getInt("pool.validation-timeout-s", 2),
+                Settings.getInt("pool.connect-timeout-ms", 10000));
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+}
@@ -1,12 +1,11 @@
 package com.redcreator37.WhitelistBot.Database.GameHandling;
 
 import com.mysql.cj.jdbc.MysqlDataSource;
+import com.redcreator37.WhitelistBot.Settings;
 import discord4j.common.util.Snowflake;
 
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Objects;
-import java.util.Optional;
 
 /**
  * Represents a MySQL database connection provider
@@ -23,8 +22,6 @@ public class SharedDbProvider {
 
     private final String dbName;
 
-    private Connection connection;
-
     /**
      * Constructs a new shared database provider
      *
@@ -43,21 +40,32 @@ public class SharedDbProvider {
     }
 
     /**
-     * Activates and connects to the database, bound to this provider
-     * instance
+     * Opens a new pool of connections to the database of this provider,
+     * which the caller has to close. Guilds get their pools through
+     * {@link com.redcreator37.WhitelistBot.DataModels.SharedWhitelist},
+     * which opens only one pool per database.
      *
-     * @return the open database connection
+     * @return the {@link ConnectionPool} of the database
      * @throws SQLException on errors
      */
-    public Connection connect() throws SQLException {
+    public ConnectionPool connect() throws SQLException {
+        PoolConfig config = PoolConfig.fromSettings();
         MysqlDataSource dataSource = new MysqlDataSource();
         dataSource.setUser(username);
         dataSource.setPassword(password);
         dataSource.setServerName(dbServer);
         dataSource.setDatabaseName(dbName);
-        connection = dataSource.getConnection();
-        connection.setAutoCommit(true);
-        return connection;
+        dataSource.setConnectTimeout(config.getConnectTimeout());
+        // send the batched whitelist changes in as few round trips as possible
+        dataSource.setRewriteBatchedStatements(true);
+        // keep the parsed statements of each connection for reuse
+        int statementCache = Settings.getInt("pool.statement-cache-size", 64);
+        if (statementCache > 0) {
+            dataSource.setUseServerPrepStmts(true);
+            dataSource.setCachePrepStmts(true);
+            dataSource.setPrepStmtCacheSize(statementCache);
+        }
+        return new ConnectionPool(dataSource, config);
     }
 
     public Snowflake getGuildId() {
@@ -80,10 +88,6 @@ public class SharedDbProvider {
         return dbName;
     }
 
-    public Optional<Connection> getConnection() {
-        return Optional.ofNullable(connection);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
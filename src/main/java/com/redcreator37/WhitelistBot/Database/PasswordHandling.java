@@ -4,6 +4,8 @@ import com.redcreator37.WhitelistBot.Localizations;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
@@ -38,7 +40,20 @@ public class PasswordHandling {
     private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
 
     /**
-     * Hashes this password combined with this salt
+     * The key factory of each thread, as looking up the provider on
+     * every call is expensive and the factories aren't thread-safe
+     */
+    private static final ThreadLocal<SecretKeyFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Hashes this password combined with this salt on the calling
+     * thread, which takes tens of milliseconds
      *
      * @param password the password to hash
      * @param salt     the salt to use when hashing
@@ -49,10 +64,9 @@ public class PasswordHandling {
         PBEKeySpec spec = new PBEKeySpec(chars, salt.getBytes(), ITERATIONS, KEY_LENGTH);
         Arrays.fill(chars, Character.MIN_VALUE);
         try {
-            SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance(ALGORITHM);
-            byte[] securePassword = secretKeyFactory.generateSecret(spec).getEncoded();
+            byte[] securePassword = FACTORY.get().generateSecret(spec).getEncoded();
             return Optional.of(Base64.getEncoder().encodeToString(securePassword));
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+        } catch (IllegalStateException | InvalidKeySpecException e) {
             System.err.println(MessageFormat.format(Localizations
                     .lc("error-running-hash-function"), e.getMessage()));
             return Optional.empty();
@@ -63,6 +77,7 @@ public class PasswordHandling {
 
     /**
      * Matches the entered password against the password in the database
+     * on the calling thread. The hashes are compared in constant time.
      *
      * @param entered the entered password
      * @param dbHash  the hash, retrieved from the database
@@ -71,7 +86,8 @@ public class PasswordHandling {
      */
     public static boolean passwordMatches(String entered, String dbHash, String salt) {
         Optional<String> optionalEncrypted = hashPassword(entered, salt);
-        return optionalEncrypted.map(hash -> hash.equals(dbHash)).orElse(false);
+        return optionalEncrypted.map(hash -> MessageDigest.isEqual(hash.getBytes(StandardCharsets.US_ASCII),
+                dbHash.getBytes(StandardCharsets.US_ASCII))).orElse(false);
     }
 
 }
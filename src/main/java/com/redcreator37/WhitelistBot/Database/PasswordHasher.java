@@ -0,0 +1,199 @@
+package com.redcreator37.WhitelistBot.Database;
+
+import com.redcreator37.WhitelistBot.Settings;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs the password hashing on a small pool of threads dedicated to it,
+ * keeping the expensive key derivation off the gateway event loop.
+ * <p>
+ * The results of the recent verifications are remembered for a short
+ * while, so checking the same credentials again doesn't derive the key
+ * again. The cache is keyed by a digest of the credentials mixed with
+ * a random per-process key, so the passwords themselves aren't kept.
+ */
+public final class PasswordHasher {
+
+    /**
+     * The maximum number of threads hashing at once, which is bounded
+     * by the number of processors as the work is purely CPU-bound
+     */
+    private static final int THREADS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+            Settings.getInt("password.threads", 4)));
+
+    /**
+     * The maximum number of hashing tasks waiting for a free thread
+     */
+    private static final int MAX_QUEUED = 256;
+
+    /**
+     * The {@link Scheduler} all hashing is submitted to
+     */
+    private static final Scheduler scheduler = Schedulers
+            .newBoundedElastic(THREADS, MAX_QUEUED, "password");
+
+    /**
+     * How long a verification result is remembered, in milliseconds
+     */
+    private static final long CACHE_TTL = Math.max(0, Settings.getLong("password.cache-ttl-s", 60)) * 1000;
+
+    /**
+     * The maximum number of remembered verification results
+     */
+    private static final int CACHE_SIZE = Math.max(1, Settings.getInt("password.cache-size", 1024));
+
+    /**
+     * The random key mixed into the cache keys
+     */
+    private static final byte[] PEPPER = new byte[32];
+
+    static {
+        new SecureRandom().nextBytes(PEPPER);
+    }
+
+    /**
+     * The digest of each thread used for the cache keys
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * A remembered verification result
+     */
+    private static final class Verification {
+
+        private final boolean matches;
+
+        /**
+         * The time when the result stops being used, as returned by
+         * {@link System#currentTimeMillis()}
+         */
+        private final long expires;
+
+        private Verification(boolean matches, long expires) {
+            this.matches = matches;
+            this.expires = expires;
+        }
+
+    }
+
+    /**
+     * The recent verification results, keyed by the digests of the
+     * credentials, least recently used first
+     */
+    private static final Map<ByteBuffer, Verification> verified =
+            new LinkedHashMap<ByteBuffer, Verification>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Verification> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Non-instantiable
+     */
+    private PasswordHasher() {
+    }
+
+    /**
+     * Hashes this password combined with this salt on the hashing
+     * threads
+     *
+     * @param password the password to hash
+     * @param salt     the salt to use when hashing
+     * @return a {@link Mono} emitting the hashed password, or an empty
+     * one if the hash function failed
+     * @see PasswordHandling#hashPassword(String, String)
+     */
+    public static Mono<String> hash(String password, String salt) {
+        return Mono.fromCallable(() -> PasswordHandling.hashPassword(password, salt))
+                .subscribeOn(scheduler)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Matches the entered password against the stored hash on the
+     * hashing threads, or answers from the recent results if the same
+     * credentials were checked shortly before
+     *
+     * @param entered the entered password
+     * @param dbHash  the stored hash
+     * @param salt    the salt used when hashing the stored password
+     * @return a {@link Mono} emitting whether the password matches
+     * @see PasswordHandling#passwordMatches(String, String, String)
+     */
+    public static Mono<Boolean> matches(String entered, String dbHash, String salt) {
+        ByteBuffer key = cacheKey(entered, dbHash, salt);
+        Optional<Boolean> cached = lookup(key);
+        if (cached.isPresent()) return Mono.just(cached.get());
+        return Mono.fromCallable(() -> {
+            boolean matches = PasswordHandling.passwordMatches(entered, dbHash, salt);
+            if (CACHE_TTL > 0) synchronized (verified) {
+                verified.put(key, new Verification(matches, System.currentTimeMillis() + CACHE_TTL));
+            }
+            return matches;
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Returns the remembered result for these credentials
+     *
+     * @param key the digest of the credentials
+     * @return the result or an empty {@link Optional} if there's none
+     * or it has expired
+     */
+    private static Optional<Boolean> lookup(ByteBuffer key) {
+        synchronized (verified) {
+            Verification verification = verified.get(key);
+            if (verification == null) return Optional.empty();
+            if (verification.expires > System.currentTimeMillis()) return Optional.of(verification.matches);
+            verified.remove(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Digests these credentials into a cache key
+     *
+     * @param entered the entered password
+     * @param dbHash  the stored hash
+     * @param salt    the salt of the stored hash
+     * @return the digest
+     */
+    private static ByteBuffer cacheKey(String entered, String dbHash, String salt) {
+        MessageDigest digest = DIGEST.get();
+        digest.update(PEPPER);
+        for (String part : new String[]{salt, dbHash, entered}) {
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(4).putInt(0, bytes.length));
+            digest.update(bytes);
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    /**
+     * Returns the {@link Scheduler} used for hashing
+     *
+     * @return the hashing {@link Scheduler}
+     */
+    public static Scheduler get() {
+        return scheduler;
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.redcreator37.WhitelistBot.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the prepared statements of a single connection open, so the
+ * same SQL is only parsed once.
+ * <p>
+ * A cached statement is used by one thread at a time, and its parameters
+ * are cleared before each use. Statements which fail are closed and
+ * prepared again on their next use. All statements are closed once the
+ * cache is closed, which must happen before the connection is closed.
+ */
+public class StatementCache implements AutoCloseable {
+
+    /**
+     * Represents an operation on a prepared statement
+     *
+     * @param <T> the type of the operation's result
+     */
+    @FunctionalInterface
+    public interface StatementCall<T> {
+
+        /**
+         * Runs the operation
+         *
+         * @param st the {@link PreparedStatement} to run the operation
+         *           with
+         * @return the result of the operation
+         * @throws SQLException on errors
+         */
+        T call(PreparedStatement st) throws SQLException;
+
+    }
+
+    /**
+     * Sets the parameters of a prepared statement
+     */
+    @FunctionalInterface
+    public interface StatementParameters {
+
+        /**
+         * Sets the parameters
+         *
+         * @param st the {@link PreparedStatement} to set the parameters
+         *           of
+         * @throws SQLException on errors
+         */
+        void set(PreparedStatement st) throws SQLException;
+
+    }
+
+    /**
+     * The connection the statements are prepared on
+     */
+    private final Connection con;
+
+    /**
+     * The open statements, keyed by their SQL
+     */
+    private final Map<String, PreparedStatement> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Whether this cache has been closed
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a new StatementCache instance
+     *
+     * @param con the connection to prepare the statements on
+     */
+    public StatementCache(Connection con) {
+        this.con = con;
+    }
+
+    /**
+     * Runs this operation with the cached statement for this SQL,
+     * preparing it first if needed. The statement must not be used
+     * after the operation returns, which includes its result sets.
+     *
+     * @param sql  the SQL of the statement
+     * @param call the operation to run
+     * @param <T>  the type of the operation's result
+     * @return the result of the operation
+     * @throws SQLException on errors
+     */
+    public <T> T execute(String sql, StatementCall<T> call) throws SQLException {
+        while (true) {
+            PreparedStatement st = prepare(sql);
+            synchronized (st) {
+                if (st.isClosed()) continue;    // discarded by another thread meanwhile
+                try {
+                    st.clearParameters();
+                    return call.call(st);
+                } catch (SQLException | RuntimeException e) {
+                    statements.remove(sql, st);
+                    st.close();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs this update with the cached statement for this SQL
+     *
+     * @param sql        the SQL of the statement
+     * @param parameters sets the parameters of the statement
+     * @return the number of changed rows
+     * @throws SQLException on errors
+     */
+    public int update(String sql, StatementParameters parameters) throws SQLException {
+        return execute(sql, st -> {
+            parameters.set(st);
+            return st.executeUpdate();
+        });
+    }
+
+    /**
+     * Returns the open statement for this SQL, preparing it if there's
+     * none yet
+     *
+     * @param sql the SQL of the statement
+     * @return the {@link PreparedStatement}
+     * @throws SQLException on errors
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (closed) throw new SQLException("The statement cache has been closed");
+        PreparedStatement st = statements.get(sql);
+        if (st != null) return st;
+        synchronized (statements) {
+            if (closed) throw new SQLException("The statement cache has been closed");
+            st = statements.get(sql);
+            if (st == null) {
+                st = con.prepareStatement(sql);
+                statements.put(sql, st);
+            }
+        }
+        return st;
+    }
+
+    /**
+     * Returns the number of currently open statements
+     *
+     * @return the number of statements
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes all cached statements. The connection itself is left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<PreparedStatement> open;
+        synchronized (statements) {
+            open = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        for (PreparedStatement st : open) {
+            synchronized (st) {
+                try {
+                    st.close();
+                } catch (SQLException ignored) {
+                    // the connection is about to be closed anyway
+                }
+            }
+        }
+    }
+
+}
@@ -1,21 +1,44 @@
 package com.redcreator37.WhitelistBot;
 
+import com.redcreator37.WhitelistBot.BackgroundTasks.AuditLog;
+import com.redcreator37.WhitelistBot.BackgroundTasks.CacheRefresh;
 import com.redcreator37.WhitelistBot.BackgroundTasks.DataAutoSave;
 import com.redcreator37.WhitelistBot.Commands.BotCommand;
+import com.redcreator37.WhitelistBot.Commands.BotCommands.BulkUnlist;
+import com.redcreator37.WhitelistBot.Commands.BotCommands.BulkWhitelist;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.EmbedAdminData;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.EmbedDatabaseData;
+import com.redcreator37.WhitelistBot.Commands.BotCommands.ExportWhitelist;
+import com.redcreator37.WhitelistBot.Commands.BotCommands.ImportWhitelist;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.LeaveGuild;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.ListWhitelisted;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.SetAdmin;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.SetDatabase;
+import com.redcreator37.WhitelistBot.Commands.BotCommands.ShowHistory;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.UnlistPlayer;
 import com.redcreator37.WhitelistBot.Commands.BotCommands.WhitelistPlayer;
 import com.redcreator37.WhitelistBot.Commands.Command;
+import com.redcreator37.WhitelistBot.Commands.CommandDispatcher;
+import com.redcreator37.WhitelistBot.Commands.CommandThrottle;
 import com.redcreator37.WhitelistBot.Commands.CommandUtils;
+import com.redcreator37.WhitelistBot.Commands.EntityCache;
+import com.redcreator37.WhitelistBot.Commands.GuildLanes;
+import com.redcreator37.WhitelistBot.Commands.MessageScheduler;
+import com.redcreator37.WhitelistBot.Commands.Paginator;
+import com.redcreator37.WhitelistBot.Commands.PermissionCache;
 import com.redcreator37.WhitelistBot.DataModels.Guild;
+import com.redcreator37.WhitelistBot.DataModels.GuildRegistry;
+import com.redcreator37.WhitelistBot.DataModels.SharedWhitelist;
+import com.redcreator37.WhitelistBot.Database.BotHandling.CachesDb;
 import com.redcreator37.WhitelistBot.Database.BotHandling.DbInstances;
 import com.redcreator37.WhitelistBot.Database.BotHandling.GuildsDb;
 import com.redcreator37.WhitelistBot.Database.BotHandling.LocalDb;
+import com.redcreator37.WhitelistBot.Database.BotHandling.Migrations;
+import com.redcreator37.WhitelistBot.Database.DatabaseScheduler;
+import com.redcreator37.WhitelistBot.Database.GameHandling.ConnectionPool;
+import com.redcreator37.WhitelistBot.Database.StatementCache;
+import com.redcreator37.WhitelistBot.Metrics.Metrics;
+import com.redcreator37.WhitelistBot.Metrics.MetricsServer;
 import discord4j.common.util.Snowflake;
 import discord4j.core.DiscordClientBuilder;
 import discord4j.core.GatewayDiscordClient;
@@ -24,17 +47,23 @@ import discord4j.core.event.domain.message.MessageCreateEvent;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 import static com.redcreator37.WhitelistBot.Localizations.lc;
 
@@ -62,15 +91,25 @@ public class DiscordBot {
      */
     private static Connection localDb = null;
 
+    /**
+     * The cached statements of the local database connection
+     */
+    private static StatementCache localStatements = null;
+
     /**
      * A {@link HashMap} holding all currently implemented commands
      */
     private static final Map<String, Command> commands = new HashMap<>();
 
     /**
-     * A {@link HashMap} of all registered guilds
+     * Resolves incoming messages into the registered commands
+     */
+    private static CommandDispatcher dispatcher = null;
+
+    /**
+     * All registered guilds
      */
-    public static HashMap<Snowflake, Guild> guilds = new HashMap<>();
+    private static final GuildRegistry guilds = new GuildRegistry();
 
     /**
      * The currently used local database support object
@@ -82,6 +121,66 @@ public class DiscordBot {
      */
     private static DbInstances instancesDb = null;
 
+    /**
+     * Refreshes the whitelist caches of the guilds in the background
+     */
+    private static CacheRefresh cacheRefresh = null;
+
+    /**
+     * Writes the changed guild data to the local database
+     */
+    private static DataAutoSave autoSave = null;
+
+    /**
+     * Records the whitelist changes into the local database
+     */
+    private static AuditLog auditLog = null;
+
+    /**
+     * Resolves the roles of the members for the permission checks
+     */
+    private static final PermissionCache permissions = new PermissionCache(DiscordBot::roleRenamed);
+
+    /**
+     * Holds the frequently resolved Discord entities
+     */
+    private static final EntityCache entities = new EntityCache(
+            Math.max(1, Settings.getInt("cache.max-channels", 256)));
+
+    /**
+     * Runs the commands of each guild in order
+     */
+    private static final GuildLanes lanes = new GuildLanes(
+            Math.max(1, Settings.getInt("lanes.queue-capacity", 8)));
+
+    /**
+     * Limits how often the commands can be used
+     */
+    private static final CommandThrottle throttle = new CommandThrottle();
+
+    /**
+     * Sends the bot's messages within the channels' rate limits
+     */
+    private static final MessageScheduler messages = new MessageScheduler(
+            Math.max(1, Settings.getInt("outbound.burst", 5)),
+            Duration.ofMillis(Math.max(1, Settings.getLong("outbound.period-ms", 5000))),
+            Duration.ofMillis(Math.max(0, Settings.getLong("outbound.coalesce-window-ms", 250))),
+            Math.max(1, Settings.getInt("outbound.queue-capacity", 16)));
+
+    /**
+     * Switches the pages of the whitelist and history listings
+     */
+    private static final Paginator paginator = new Paginator(
+            Math.max(1, Math.min(100, Settings.getInt("list.page-size", 20))),
+            Settings.getLong("list.idle-timeout-s", 300));
+
+    /**
+     * How long to wait after a failed shared database connection before
+     * a command may try to connect it again
+     */
+    private static final Duration connectRetryDelay = Duration.ofSeconds(
+            Math.max(0, Settings.getLong("startup.connect-retry-s", 60)));
+
     /**
      * Registers this {@link C command} into the global {@link MessageCreateEvent}
      * event dispatcher
@@ -95,13 +194,34 @@ public class DiscordBot {
      */
     @SuppressWarnings("OptionalGetWithoutIsPresent")
     private static <C extends BotCommand> void registerCommand(String cmd, boolean parseParams, C command) {
-        if (parseParams)
-            commands.put(cmd, e -> Mono.justOrEmpty(e.getMessage().getContent())
-                    .map(cnt -> Arrays.asList(cnt.split(" ")))
-                    .doOnNext(params -> Mono.justOrEmpty(guilds.get(e.getGuildId().get()))
-                            .flatMap(guild -> command.execute(params, guild, e)).block()).then());
-        else commands.put(cmd, e -> Mono.just(guilds.get(e.getGuildId().get()))
-                .flatMap(guild -> command.execute(null, guild, e).then()));
+        throttle.register(cmd);
+        commands.put(cmd, e -> Mono.justOrEmpty(guilds.get(e.getGuildId().get()))
+                .flatMap(guild -> connectLazily(guild).then(Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return command.execute(parseParams ? Arrays.asList(e.getMessage()
+                            .getContent().split(" ")) : null, guild, e)
+                            .doOnError(ex -> Metrics.COMMAND_ERRORS.inc(cmd))
+                            .doFinally(signal -> Metrics.COMMANDS.observe(cmd, System.nanoTime() - start));
+                }))));
+    }
+
+    /**
+     * Connects the shared database of this guild if it hasn't been
+     * connected yet, ex. because it failed or timed out on startup.
+     * Failures are only logged, as the command itself reports the
+     * missing connection.
+     *
+     * @param guild the {@link Guild} whose database to connect
+     * @return an empty {@link Mono} completing once the attempt is done
+     */
+    private static Mono<Void> connectLazily(Guild guild) {
+        if (guild.isConnected() || guild.getSharedDbProvider() == null) return Mono.empty();
+        return DatabaseScheduler.run(() -> guild.connectIfNeeded(connectRetryDelay, true))
+                .onErrorResume(SQLException.class, e -> {
+                    System.err.println(MessageFormat.format(lc("connecting-failed-for-guild"),
+                            guild.getSnowflake().asString(), e.getMessage()));
+                    return Mono.empty();
+                });
     }
 
     /**
@@ -111,11 +231,17 @@ public class DiscordBot {
         registerCommand("list", false, new ListWhitelisted());
         registerCommand("whitelist", true, new WhitelistPlayer());
         registerCommand("unlist", true, new UnlistPlayer());
+        registerCommand("bulkwhitelist", true, new BulkWhitelist());
+        registerCommand("bulkunlist", true, new BulkUnlist());
+        registerCommand("history", true, new ShowHistory());
+        registerCommand("import", false, new ImportWhitelist());
+        registerCommand("export", false, new ExportWhitelist());
         registerCommand("getadmin", false, new EmbedAdminData());
         registerCommand("setadmin", true, new SetAdmin());
         registerCommand("getdatabase", false, new EmbedDatabaseData());
         registerCommand("setdatabase", true, new SetDatabase());
         registerCommand("kickbot", false, new LeaveGuild());
+        dispatcher = new CommandDispatcher(cmdPrefix, commands);
     }
 
     /**
@@ -128,16 +254,15 @@ public class DiscordBot {
      * @return the status message
      */
     private static Mono<String> addGuild(Guild guild, GuildCreateEvent event) {
-        try {
-            guildsDb.addGuild(guild);
-            guilds.put(guild.getSnowflake(), guild);
-            CommandUtils.sendWelcome(event.getGuild());
-            return Mono.just(MessageFormat.format(lc("registered-guild"),
-                    guild.getSnowflake().asString()));
-        } catch (SQLException ex) {
-            return Mono.just(MessageFormat.format(lc("warn-guild-add-failed"),
-                    ex.getMessage()));
-        }
+        if (!guilds.register(guild)) return Mono.empty();
+        return DatabaseScheduler.run(() -> guildsDb.addGuild(guild))
+                .then(CommandUtils.sendWelcome(event.getGuild()))
+                .thenReturn(MessageFormat.format(lc("registered-guild"),
+                        guild.getSnowflake().asString()))
+                .onErrorResume(SQLException.class, ex -> {
+                    guilds.unregister(guild);
+                    return Mono.just(MessageFormat.format(lc("warn-guild-add-failed"), ex.getMessage()));
+                });
     }
 
     /**
@@ -147,37 +272,141 @@ public class DiscordBot {
      * @return the status message
      */
     public static Mono<Boolean> removeGuild(Guild guild) {
-        try {
+        return DatabaseScheduler.call(() -> {
+            autoSave.discard(guild);
+            cacheRefresh.forget(guild.getSnowflake());
+            if (guild.getSharedDbProvider() != null)
+                instancesDb.removeInstance(guild.getSharedDbProvider());
             guildsDb.removeGuild(guild);
-            guilds.remove(guild.getSnowflake());
+            guilds.unregister(guild);
+            guild.disconnectSharedDb();
             System.out.println(MessageFormat.format(lc("unregistered-guild"),
                     guild.getSnowflake().asString()));
-            return Mono.just(true);
-        } catch (SQLException ex) {
+            return true;
+        }).onErrorResume(SQLException.class, ex -> {
             System.err.println(MessageFormat.format(lc("warn-guild-remove-failed"),
                     ex.getMessage()));
             return Mono.just(false);
-        }
+        });
+    }
+
+    /**
+     * Marks the data of this {@link Guild} as changed, which schedules
+     * it to be written to the local database shortly
+     *
+     * @param guild the changed {@link Guild}
+     */
+    public static void markDirty(Guild guild) {
+        autoSave.markDirty(guild);
+    }
+
+    /**
+     * Returns the registry of all registered guilds
+     *
+     * @return the {@link GuildRegistry}
+     */
+    public static GuildRegistry getGuilds() {
+        return guilds;
+    }
+
+    /**
+     * Returns the audit log of the whitelist changes
+     *
+     * @return the {@link AuditLog}
+     */
+    public static AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * Returns the scheduler all outgoing messages are sent through
+     *
+     * @return the {@link MessageScheduler}
+     */
+    public static MessageScheduler getMessages() {
+        return messages;
+    }
+
+    /**
+     * Returns the cache used for the permission checks
+     *
+     * @return the {@link PermissionCache}
+     */
+    public static PermissionCache getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Returns the cache of the frequently resolved Discord entities
+     *
+     * @return the {@link EntityCache}
+     */
+    public static EntityCache getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns the paginator of the whitelist and history listings
+     *
+     * @return the {@link Paginator}
+     */
+    public static Paginator getPaginator() {
+        return paginator;
+    }
+
+    /**
+     * Updates the admin role of the matching guild when its role gets
+     * renamed, so the permissions stay the same
+     *
+     * @param guildId the snowflake of the guild the role is in
+     * @param oldName the previous name of the role
+     * @param newName the current name of the role
+     */
+    private static void roleRenamed(Snowflake guildId, String oldName, String newName) {
+        Guild guild = guilds.get(guildId);
+        if (guild == null || !oldName.equals(guild.getAdminRole())) return;
+        guild.setAdminRole(newName);
+        markDirty(guild);
+    }
+
+    /**
+     * Runs this command in the lane of the guild it was sent in, or
+     * tells the user the guild is busy if its lane is full
+     *
+     * @param command the {@link Command} to run
+     * @param e       the {@link MessageCreateEvent} of the command
+     * @return a {@link Mono} completing once the command has run
+     */
+    private static Mono<Void> runInLane(Command command, MessageCreateEvent e) {
+        return lanes.submit(e.getGuildId().get(), command.execute(e).onErrorResume(ex -> {
+            System.err.println(MessageFormat.format(lc("error-format"), ex.getMessage()));
+            return Mono.empty();
+        })).onErrorResume(RejectedExecutionException.class, ex -> {
+            Metrics.COMMANDS_SHED.inc();
+            return CommandUtils.busyEmbed(e);
+        });
     }
 
     /**
      * Initializes and hooks up the event handlers
      */
     private static void setUpEventDispatcher() {
+        permissions.subscribe(client);
+        entities.subscribe(client);
+        paginator.subscribe(client);
         client.getEventDispatcher().on(MessageCreateEvent.class)
-                .flatMap(e -> Mono.just(e.getMessage().getContent())
-                        .flatMap(content -> Flux.fromIterable(commands.entrySet())
-                                .filter(entry -> content.startsWith(cmdPrefix + entry.getKey()))
-                                .flatMap(entry -> entry.getValue().execute(e)).next()))
+                .flatMap(e -> {
+                    String name = dispatcher.resolveName(e);
+                    if (name == null) return Mono.empty();
+                    // throttled before entering the lane, so a single user can't fill it
+                    return throttle.check(name, e).filter(allowed -> allowed)
+                            .flatMap(allowed -> runInLane(commands.get(name), e));
+                })
                 .subscribe();
         client.getEventDispatcher().on(GuildCreateEvent.class)
                 .flatMap(e -> Mono.just(e.getGuild())
                         .flatMap(guild -> Mono.just(new Guild(guild.getId(), Instant.now())))
-                        .flatMap(guild -> {
-                            if (guilds.get(guild.getSnowflake()) != null)
-                                return Mono.empty();
-                            return Mono.just(addGuild(guild, e));
-                        }))
+                        .flatMap(guild -> addGuild(guild, e)))
                 .subscribe(System.out::println);
     }
 
@@ -185,37 +414,40 @@ public class DiscordBot {
      * Sets up the local database connection
      */
     private static void setUpDatabase() {
-        boolean success = true, isNew = !new File("bot.db").exists();
+        boolean success = true;
         try {
             localDb = LocalDb.connect("bot.db");
-            guildsDb = new GuildsDb(localDb);
-            instancesDb = new DbInstances(localDb);
+            localStatements = new StatementCache(localDb);
+            guildsDb = new GuildsDb(localStatements);
+            instancesDb = new DbInstances(localStatements);
+            cacheRefresh = new CacheRefresh(new CachesDb(localStatements), guilds);
         } catch (SQLException e) {
             System.err.println(MessageFormat.format(lc("error-format"), e.getMessage()));
+            success = false;
         }
 
-        if (isNew) try {
-            new LocalDb().createDatabaseTables(localDb, DiscordBot.class
-                    .getClassLoader().getResourceAsStream("GenerateDb.sql"));
-            System.out.println(lc("created-empty-db"));
+        if (success) try {
+            long start = System.nanoTime();
+            if (Migrations.migrate(localDb) > 0)
+                System.out.println(MessageFormat.format(lc("db-schema-updated"),
+                        Migrations.getLatestVersion(), (System.nanoTime() - start) / 1_000_000));
         } catch (SQLException | IOException e) {
-            System.err.println(MessageFormat.format(lc("error-creating-db"),
+            System.err.println(MessageFormat.format(lc("error-migrating-db"),
                     e.getMessage()));
             success = false;
         }
 
-        try {
-            guilds = guildsDb.getGuilds();
-            guilds.values().forEach(guild -> {
-                try {
-                    if (guild.getSharedDbProvider() != null)
-                        guild.connectSharedDb();
-                } catch (SQLException e) {
-                    System.err.println(MessageFormat.format(lc("connecting-failed-for-guild"),
-                            guild.getSnowflake().toString(), e.getMessage()));
-                }
-            });
-            System.out.println(lc("db-loaded-success"));
+        if (success) try {
+            autoSave = new DataAutoSave(LocalDb.connect("bot.db"),
+                    Settings.getLong("autosave.flush-delay-ms", 2000));
+            auditLog = new AuditLog(LocalDb.connect("bot.db"),
+                    Math.max(0, Settings.getLong("audit.flush-delay-ms", 1000)),
+                    Math.max(1, Settings.getInt("audit.batch-size", 100)),
+                    Math.max(1, Settings.getInt("audit.queue-capacity", 10000)));
+            long start = System.nanoTime();
+            guilds.registerAll(guildsDb.getGuilds().values());
+            System.out.println(MessageFormat.format(lc("db-loaded-success"),
+                    guilds.size(), (System.nanoTime() - start) / 1_000_000));
         } catch (SQLException e) {
             System.err.println(MessageFormat.format(lc("error-reading-db"),
                     e.getMessage()));
@@ -228,12 +460,96 @@ public class DiscordBot {
         }
     }
 
+    /**
+     * Connects the shared databases of all registered guilds in the
+     * background, a limited number at a time. Each guild gets a limited
+     * time to connect, and the guilds which fail or time out connect
+     * on their first command instead. The whitelists which were
+     * refreshed within the TTL before the restart aren't loaded now,
+     * but on the spread-out refresh schedule.
+     */
+    private static void connectSharedDbs() {
+        int concurrency = Math.max(1, Math.min(16, Settings.getInt("startup.connect-concurrency", 8)));
+        Duration timeout = Duration.ofSeconds(Math.max(1, Settings.getLong("startup.connect-timeout-s", 30)));
+        List<Guild> pending = guilds.snapshot().stream()
+                .filter(guild -> guild.getSharedDbProvider() != null)
+                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        Flux.fromIterable(pending)
+                .flatMap(guild -> DatabaseScheduler.run(() -> guild.connectIfNeeded(Duration.ZERO,
+                        !cacheRefresh.isFresh(guild.getSnowflake())))
+                        .timeout(timeout)
+                        .thenReturn(true)
+                        .onErrorResume(e -> {
+                            System.err.println(e instanceof TimeoutException
+                                    ? MessageFormat.format(lc("connecting-timed-out-for-guild"),
+                                    guild.getSnowflake().asString(), timeout.getSeconds())
+                                    : MessageFormat.format(lc("connecting-failed-for-guild"),
+                                    guild.getSnowflake().asString(), e.getMessage()));
+                            return Mono.just(false);
+                        }), concurrency)
+                .filter(connected -> connected)
+                .count()
+                .subscribe(connected -> System.out.println(MessageFormat.format(lc("shared-dbs-connected"),
+                        connected, pending.size(), (System.nanoTime() - start) / 1_000_000)));
+    }
+
+    /**
+     * Returns the sum of this connection pool statistic over all open
+     * shared databases, counting each pool once even if several guilds
+     * use it
+     *
+     * @param statistic the statistic to sum
+     * @return the sum
+     */
+    private static double sumPools(ToIntFunction<ConnectionPool> statistic) {
+        int sum = 0;
+        for (SharedWhitelist shared : SharedWhitelist.snapshot())
+            sum += shared.getPool().map(statistic::applyAsInt).orElse(0);
+        return sum;
+    }
+
+    /**
+     * Registers the gauges and starts serving the metrics, if enabled
+     */
+    private static void setUpMetrics() {
+        Metrics.gauge("whitelistbot_guilds", "Registered guilds", () -> guilds.size());
+        Metrics.gauge("whitelistbot_outbound_queued", "Outgoing messages waiting for their channel's rate limit",
+                () -> messages.getQueued());
+        Metrics.gauge("whitelistbot_audit_pending", "Whitelist changes waiting to be written to the audit log",
+                () -> auditLog.getPending());
+        Metrics.gauge("whitelistbot_whitelist_cache_players", "Players in all whitelist caches",
+                () -> SharedWhitelist.snapshot().stream().mapToInt(SharedWhitelist::getWhitelistedCount).sum());
+        Metrics.gauge("whitelistbot_shared_dbs", "Distinct game databases connected",
+                () -> SharedWhitelist.snapshot().size());
+        Metrics.gauge("whitelistbot_db_pool_connections_active", "Game database connections in use",
+                () -> sumPools(ConnectionPool::getActiveCount));
+        Metrics.gauge("whitelistbot_db_pool_connections_idle", "Idle game database connections",
+                () -> sumPools(ConnectionPool::getIdleCount));
+        Metrics.counterFunction("whitelistbot_entity_cache_hits_total",
+                "Discord entities served from the cache", entities::getHits);
+        Metrics.counterFunction("whitelistbot_entity_cache_misses_total",
+                "Discord entities fetched from Discord", entities::getMisses);
+        if (!Settings.getBoolean("metrics.enabled", true)) return;
+        try {
+            new MetricsServer(Settings.getString("metrics.host", "127.0.0.1"),
+                    Settings.getInt("metrics.port", 9464));
+        } catch (IOException e) {
+            System.err.println(MessageFormat.format(lc("warn-metrics-server-failed"), e.getMessage()));
+        }
+    }
+
     /**
      * Sets up multi-threaded background tasks
      */
     private static void setUpBackgroundTasks() {
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
-                new DataAutoSave(instancesDb, guildsDb), 0, 15, TimeUnit.MINUTES);
+        // the refreshes block on the databases, so they don't hold up the sweeps
+        ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor();
+        long refreshInterval = Math.max(1, Settings.getLong("cache.refresh-interval-s", 30));
+        refresher.scheduleWithFixedDelay(cacheRefresh, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        executor.scheduleWithFixedDelay(paginator::expire, 1, 1, TimeUnit.MINUTES);
+        executor.scheduleWithFixedDelay(throttle::expire, 1, 1, TimeUnit.MINUTES);
     }
 
     /**
@@ -255,18 +571,28 @@ public class DiscordBot {
             System.exit(1);
         }
         setUpEventDispatcher();
+        connectSharedDbs();
         setUpBackgroundTasks();
-        // close the database connection on shutdown
-        client.onDisconnect().filter(unused -> {
-            try {
-                new DataAutoSave(instancesDb, guildsDb).run();   // trigger manual data save
-                localDb.close();
-            } catch (SQLException e) {
-                System.err.println(MessageFormat.format(lc("warn-db-close-failed"),
-                        e.getMessage()));
-            }
-            return true;
-        }).block();
+        setUpMetrics();
+        // save the pending data also when the process gets terminated
+        Runtime.getRuntime().addShutdownHook(new Thread(DiscordBot::shutDown));
+        client.onDisconnect().block();
+        shutDown();
+    }
+
+    /**
+     * Writes all pending data and closes the database connection
+     */
+    private static synchronized void shutDown() {
+        autoSave.close();
+        auditLog.close();
+        try {
+            localStatements.close();
+            if (!localDb.isClosed()) localDb.close();
+        } catch (SQLException e) {
+            System.err.println(MessageFormat.format(lc("warn-db-close-failed"),
+                    e.getMessage()));
+        }
     }
 
 }
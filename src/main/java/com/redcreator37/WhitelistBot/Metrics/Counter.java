@@ -0,0 +1,48 @@
+package com.redcreator37.WhitelistBot.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count of events, optionally split into
+ * series by a single label
+ */
+public class Counter extends Metric {
+
+    /**
+     * The counts of each series, keyed by the label values
+     */
+    private final Map<String, LongAdder> series = new ConcurrentHashMap<>();
+
+    Counter(String name, String help, String labelName) {
+        super(name, help, labelName);
+    }
+
+    /**
+     * Increments the count of the series with this label value
+     *
+     * @param labelValue the value of the counter's label
+     */
+    public void inc(String labelValue) {
+        series.computeIfAbsent(labelValue, value -> new LongAdder()).increment();
+    }
+
+    /**
+     * Increments the count of a counter without labels
+     */
+    public void inc() {
+        inc("");
+    }
+
+    @Override
+    String type() {
+        return "counter";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        series.forEach((label, count) -> sample(out, "", label, null).append(count.sum()).append('\n'));
+    }
+
+}
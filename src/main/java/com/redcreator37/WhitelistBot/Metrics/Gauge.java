@@ -0,0 +1,37 @@
+package com.redcreator37.WhitelistBot.Metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value which is read only when the metrics are scraped
+ */
+public class Gauge extends Metric {
+
+    /**
+     * Supplies the current value
+     */
+    private final DoubleSupplier value;
+
+    /**
+     * The reported type, which is <code>counter</code> for values that
+     * only increase (ex. cache hits counted elsewhere)
+     */
+    private final String type;
+
+    Gauge(String name, String help, String type, DoubleSupplier value) {
+        super(name, help, null);
+        this.type = type;
+        this.value = value;
+    }
+
+    @Override
+    String type() {
+        return type;
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        sample(out, "", null, null).append(value.getAsDouble()).append('\n');
+    }
+
+}
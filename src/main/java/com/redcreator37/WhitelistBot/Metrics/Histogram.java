@@ -0,0 +1,131 @@
+package com.redcreator37.WhitelistBot.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of durations, optionally split into series
+ * by a single label.
+ * <p>
+ * The bucket bounds double from 2^16 ns (~66 microseconds) up to 2^35 ns (~34 s),
+ * so a duration is assigned to its bucket with a single bit operation
+ * and recorded by incrementing two {@link LongAdder}s, which is cheap
+ * enough to leave on all the time.
+ */
+public class Histogram extends Metric {
+
+    /**
+     * The binary logarithm of the smallest bucket bound in nanoseconds
+     */
+    private static final int MIN_SHIFT = 16;
+
+    /**
+     * The number of bounded buckets, excluding <code>+Inf</code>
+     */
+    private static final int BUCKETS = 20;
+
+    /**
+     * The bucket bounds in seconds, formatted for the output
+     */
+    private static final String[] BOUNDS = new String[BUCKETS + 1];
+
+    static {
+        for (int i = 0; i < BUCKETS; i++)
+            BOUNDS[i] = "le=\"" + (1L << (MIN_SHIFT + i)) / 1e9 + "\"";
+        BOUNDS[BUCKETS] = "le=\"+Inf\"";
+    }
+
+    /**
+     * The recorded values of a single series
+     */
+    private static final class Series {
+
+        /**
+         * The non-cumulative counts of each bucket
+         */
+        private final LongAdder[] buckets = new LongAdder[BUCKETS + 1];
+
+        /**
+         * The sum of all recorded durations in nanoseconds
+         */
+        private final LongAdder sum = new LongAdder();
+
+        private Series() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+    }
+
+    /**
+     * Stops the measurement started by {@link Histogram#time(String)}
+     * when closed, so it can be used in try-with-resources statements
+     */
+    public final class Timer implements AutoCloseable {
+
+        private final String labelValue;
+
+        private final long start = System.nanoTime();
+
+        private Timer(String labelValue) {
+            this.labelValue = labelValue;
+        }
+
+        @Override
+        public void close() {
+            observe(labelValue, System.nanoTime() - start);
+        }
+
+    }
+
+    /**
+     * The recorded values of each series, keyed by the label values
+     */
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    Histogram(String name, String help, String labelName) {
+        super(name, help, labelName);
+    }
+
+    /**
+     * Records this duration in the series with this label value
+     *
+     * @param labelValue the value of the histogram's label
+     * @param nanos      the duration in nanoseconds
+     */
+    public void observe(String labelValue, long nanos) {
+        Series s = series.computeIfAbsent(labelValue, value -> new Series());
+        long scaled = Math.max(0, nanos - 1) >> MIN_SHIFT;
+        s.buckets[Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(scaled))].increment();
+        s.sum.add(nanos);
+    }
+
+    /**
+     * Starts measuring a duration for the series with this label value
+     *
+     * @param labelValue the value of the histogram's label
+     * @return the {@link Timer} which records the duration when closed
+     */
+    public Timer time(String labelValue) {
+        return new Timer(labelValue);
+    }
+
+    @Override
+    String type() {
+        return "histogram";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        series.forEach((label, s) -> {
+            long cumulative = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                cumulative += s.buckets[i].sum();
+                sample(out, "_bucket", label, BOUNDS[i]).append(cumulative).append('\n');
+            }
+            sample(out, "_sum", label, null).append(s.sum.sum() / 1e9).append('\n');
+            sample(out, "_count", label, null).append(cumulative).append('\n');
+        });
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.redcreator37.WhitelistBot.Metrics;
+
+/**
+ * Represents a named metric, which can be written in the Prometheus
+ * text exposition format
+ */
+public abstract class Metric {
+
+    /**
+     * The name of the metric, including the unit suffix
+     */
+    private final String name;
+
+    /**
+     * The description of the metric
+     */
+    private final String help;
+
+    /**
+     * The name of the label which distinguishes the metric's series or
+     * <code>null</code> if it has only one series
+     */
+    private final String labelName;
+
+    Metric(String name, String help, String labelName) {
+        this.name = name;
+        this.help = help;
+        this.labelName = labelName;
+    }
+
+    /**
+     * Returns the Prometheus type of this metric
+     *
+     * @return the type (ex. <code>counter</code>)
+     */
+    abstract String type();
+
+    /**
+     * Writes the samples of this metric
+     *
+     * @param out the {@link StringBuilder} to write into
+     */
+    abstract void writeSamples(StringBuilder out);
+
+    /**
+     * Writes this metric along with its metadata
+     *
+     * @param out the {@link StringBuilder} to write into
+     */
+    void write(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type()).append('\n');
+        writeSamples(out);
+    }
+
+    /**
+     * Writes the name and the labels of a single sample
+     *
+     * @param out        the {@link StringBuilder} to write into
+     * @param suffix     the suffix appended to the metric's name
+     * @param labelValue the value of the metric's label, ignored if the
+     *                   metric has no label
+     * @param extra      an additional label in the <code>name="value"</code>
+     *                   form or <code>null</code>
+     * @return the same {@link StringBuilder}
+     */
+    StringBuilder sample(StringBuilder out, String suffix, String labelValue, String extra) {
+        out.append(name).append(suffix);
+        boolean labeled = labelName != null;
+        if (labeled || extra != null) {
+            out.append('{');
+            if (labeled) {
+                out.append(labelName).append("=\"");
+                escape(out, labelValue);
+                out.append('"');
+            }
+            if (extra != null) out.append(labeled ? "," : "").append(extra);
+            out.append('}');
+        }
+        return out.append(' ');
+    }
+
+    /**
+     * Appends this label value escaped as required by the format
+     *
+     * @param out   the {@link StringBuilder} to write into
+     * @param value the label value
+     */
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') out.append('\\').append(c);
+            else if (c == '\n') out.append("\\n");
+            else out.append(c);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.redcreator37.WhitelistBot.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds all metrics of the bot and renders them in the Prometheus text
+ * exposition format
+ */
+public class Metrics {
+
+    /**
+     * All registered metrics, keyed by their names
+     */
+    private static final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * The execution times of the commands
+     */
+    public static final Histogram COMMANDS = histogram("whitelistbot_command_duration_seconds",
+            "Time taken to execute a command", "command");
+
+    /**
+     * The commands which failed with an unhandled error
+     */
+    public static final Counter COMMAND_ERRORS = counter("whitelistbot_command_errors_total",
+            "Commands which failed with an error", "command");
+
+    /**
+     * The commands rejected because their guild had too many commands
+     * waiting
+     */
+    public static final Counter COMMANDS_SHED = counter("whitelistbot_commands_shed_total",
+            "Commands rejected because their guild had too many commands waiting", null);
+
+    /**
+     * The commands rejected because a usage limit was exceeded, labeled
+     * by the limit's scope
+     */
+    public static final Counter COMMANDS_THROTTLED = counter("whitelistbot_commands_throttled_total",
+            "Commands rejected because a usage limit was exceeded", "scope");
+
+    /**
+     * The commands rejected because the member lacked the admin role
+     */
+    public static final Counter PERMISSION_DENIALS = counter("whitelistbot_permission_denials_total",
+            "Commands rejected because the member lacked the required role", "command");
+
+    /**
+     * The commands rejected because of missing arguments
+     */
+    public static final Counter SYNTAX_ERRORS = counter("whitelistbot_syntax_errors_total",
+            "Commands rejected because of missing arguments", "command");
+
+    /**
+     * The execution times of the database calls, labeled by the
+     * database and the operation
+     */
+    public static final Histogram DB_CALLS = histogram("whitelistbot_db_call_duration_seconds",
+            "Time taken by a database call", "call");
+
+    /**
+     * The time outgoing messages spent waiting in their channel's queue
+     * and the time Discord took to accept them
+     */
+    public static final Histogram OUTBOUND = histogram("whitelistbot_outbound_message_duration_seconds",
+            "Time an outgoing message spent in the given stage", "stage");
+
+    /**
+     * The outgoing messages merged into an already queued message
+     */
+    public static final Counter OUTBOUND_COALESCED = counter("whitelistbot_outbound_coalesced_total",
+            "Outgoing messages merged into an already queued message", null);
+
+    /**
+     * The outgoing messages rejected because their channel's queue was
+     * full
+     */
+    public static final Counter OUTBOUND_REJECTED = counter("whitelistbot_outbound_rejected_total",
+            "Outgoing messages rejected because their channel's queue was full", null);
+
+    /**
+     * The whitelist changes recorded into the audit log
+     */
+    public static final Counter AUDIT_RECORDED = counter("whitelistbot_audit_recorded_total",
+            "Whitelist changes recorded into the audit log", null);
+
+    /**
+     * The whitelist changes which weren't recorded because too many
+     * entries were waiting to be written
+     */
+    public static final Counter AUDIT_DROPPED = counter("whitelistbot_audit_dropped_total",
+            "Whitelist changes dropped because too many audit log entries were waiting", null);
+
+    /**
+     * Registers a new counter
+     *
+     * @param name      the name of the counter, ending with <code>_total</code>
+     * @param help      the description of the counter
+     * @param labelName the name of the label distinguishing the series
+     *                  or <code>null</code> if there's a single series
+     * @return the registered {@link Counter}
+     */
+    public static Counter counter(String name, String help, String labelName) {
+        return register(new Counter(name, help, labelName));
+    }
+
+    /**
+     * Registers a new duration histogram
+     *
+     * @param name      the name of the histogram, ending with <code>_seconds</code>
+     * @param help      the description of the histogram
+     * @param labelName the name of the label distinguishing the series
+     *                  or <code>null</code> if there's a single series
+     * @return the registered {@link Histogram}
+     */
+    public static Histogram histogram(String name, String help, String labelName) {
+        return register(new Histogram(name, help, labelName));
+    }
+
+    /**
+     * Registers a new gauge, whose value is read on each scrape
+     *
+     * @param name  the name of the gauge
+     * @param help  the description of the gauge
+     * @param value supplies the current value
+     * @return the registered {@link Gauge}
+     */
+    public static Gauge gauge(String name, String help, DoubleSupplier value) {
+        return register(new Gauge(name, help, "gauge", value));
+    }
+
+    /**
+     * Registers a counter which is maintained elsewhere and only read on
+     * each scrape
+     *
+     * @param name  the name of the counter, ending with <code>_total</code>
+     * @param help  the description of the counter
+     * @param value supplies the current count
+     * @return the registered {@link Gauge}
+     */
+    public static Gauge counterFunction(String name, String help, DoubleSupplier value) {
+        return register(new Gauge(name, help, "counter", value));
+    }
+
+    /**
+     * Adds this metric to the registry
+     *
+     * @param metric the {@link Metric} to add
+     * @param <M>    the metric's type
+     * @return the same metric
+     */
+    private static <M extends Metric> M register(M metric) {
+        if (metrics.putIfAbsent(metric.getName(), metric) != null)
+            throw new IllegalArgumentException("Duplicate metric: " + metric.getName());
+        return metric;
+    }
+
+    /**
+     * Renders the current values of all metrics
+     *
+     * @return the metrics in the Prometheus text exposition format
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        metrics.values().forEach(metric -> metric.write(out));
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.redcreator37.WhitelistBot;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.Properties;
+
+import static com.redcreator37.WhitelistBot.Localizations.lc;
+
+/**
+ * Provides the tunable settings of the bot.
+ * <p>
+ * The values are read from the optional <code>bot.properties</code> file
+ * in the working directory, while JVM system properties with the same
+ * keys (ex. <code>-Dpool.max-size=8</code>) take precedence over it.
+ */
+public final class Settings {
+
+    /**
+     * The settings read from the properties file
+     */
+    private static final Properties properties = load("bot.properties");
+
+    /**
+     * Non-instantiable
+     */
+    private Settings() {
+    }
+
+    /**
+     * Reads the properties file at this path
+     *
+     * @param path the path to the properties file
+     * @return the read {@link Properties} or empty ones if the file
+     * doesn't exist
+     */
+    @SuppressWarnings("SameParameterValue")
+    private static Properties load(String path) {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            props.load(in);
+        } catch (java.io.FileNotFoundException ignored) {
+            // all settings fall back to their defaults
+        } catch (IOException e) {
+            System.err.println(MessageFormat.format(lc("warn-settings-read-failed"),
+                    path, e.getMessage()));
+        }
+        return props;
+    }
+
+    /**
+     * Returns the raw value of the setting with this key
+     *
+     * @param key the key of the setting
+     * @return the value or <code>null</code> if the setting isn't set
+     */
+    private static String get(String key) {
+        String value = System.getProperty(key);
+        return value != null ? value.trim() : properties.getProperty(key) != null
+                ? properties.getProperty(key).trim() : null;
+    }
+
+    /**
+     * Returns the string value of the setting with this key
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting isn't set
+     * @return the value of the setting
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Returns the integer value of the setting with this key
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting isn't set or
+     *                     isn't a valid number
+     * @return the value of the setting
+     */
+    public static int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Returns the long value of the setting with this key
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting isn't set or
+     *                     isn't a valid number
+     * @return the value of the setting
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println(MessageFormat.format(lc("warn-invalid-setting"), key, value));
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the boolean value of the setting with this key
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting isn't set
+     * @return the value of the setting
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value == null || value.isEmpty() ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+}
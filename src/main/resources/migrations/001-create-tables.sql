@@ -1,4 +1,4 @@
-create table guilds
+create table if not exists guilds
 (
     snowflake  text not null
         constraint guilds_pk
@@ -7,17 +7,17 @@ create table guilds
     admin_role text default 'admins'
 );
 --
-create table caches
+create table if not exists caches
 (
     guild_id     text not null
         references guilds (snowflake),
     last_refresh text not null
 );
 --
-create unique index caches_guild_id_uindex
+create unique index if not exists caches_guild_id_uindex
     on caches (guild_id);
 --
-create table db_instances
+create table if not exists db_instances
 (
     guild_id text            not null
         references guilds (snowflake),
@@ -27,9 +27,9 @@ create table db_instances
     database text            not null
 );
 --
-create unique index db_instances_guild_id_uindex
+create unique index if not exists db_instances_guild_id_uindex
     on db_instances (guild_id);
 --
-create unique index guilds_snowflake_uindex
+create unique index if not exists guilds_snowflake_uindex
     on guilds (snowflake);
 --
@@ -0,0 +1,57 @@
+create table guilds_v2
+(
+    snowflake  integer not null
+        constraint guilds_pk
+        primary key,
+    joined     integer not null,
+    admin_role text default 'admins'
+);
+--
+insert into guilds_v2(snowflake, joined, admin_role)
+select cast(snowflake as integer),
+       coalesce(cast(round((julianday(joined) - 2440587.5) * 86400000) as integer), 0),
+       admin_role
+from guilds;
+--
+create table caches_v2
+(
+    guild_id     integer not null
+        constraint caches_pk
+        primary key
+        references guilds (snowflake),
+    last_refresh integer not null
+);
+--
+insert into caches_v2(guild_id, last_refresh)
+select cast(guild_id as integer),
+       coalesce(cast(round((julianday(last_refresh) - 2440587.5) * 86400000) as integer), 0)
+from caches;
+--
+create table db_instances_v2
+(
+    guild_id integer         not null
+        constraint db_instances_pk
+        primary key
+        references guilds (snowflake),
+    server   text            not null,
+    username text default '' not null,
+    password text default '' not null,
+    database text            not null
+);
+--
+insert into db_instances_v2(guild_id, server, username, password, database)
+select cast(guild_id as integer), server, username, password, database
+from db_instances;
+--
+drop table caches;
+--
+drop table db_instances;
+--
+drop table guilds;
+--
+alter table guilds_v2 rename to guilds;
+--
+alter table caches_v2 rename to caches;
+--
+alter table db_instances_v2 rename to db_instances;
+--
@@ -0,0 +1,18 @@
+create table audit_log
+(
+    id         integer not null
+        constraint audit_log_pk
+        primary key,
+    guild_id   integer not null,
+    actor_id   integer not null,
+    action     text    not null,
+    identifier text    not null,
+    created    integer not null
+);
+--
+create index audit_log_guild_created
+    on audit_log (guild_id, created);
+--
+create index audit_log_guild_identifier_created
+    on audit_log (guild_id, identifier, created);
+--